@@ -2,6 +2,9 @@
 
 package uk.ac.keele.csc20004.autorepair;
 
+import java.util.Collection;
+import java.util.Objects;
+
 /** A very basic interface for an autorepair.
  *
  */
@@ -23,6 +26,76 @@ public interface Autorepair {
      */
     public ServiceRequest getNextRequest();    
     
+    /** Accept several requests at once. Requests are accepted in the order
+     * of the collection until MAX_REQUESTS are waiting; the remaining ones
+     * are rejected.
+     * 
+     * The batching is meant to be done by the waiting line, e.g. with
+     * RequestQueue.offerAll(), which moves all the requests while holding
+     * the lock once; implementations are expected to override this method
+     * to do so. The default implementation is only a fallback, so that
+     * existing implementations keep working: it just calls placeRequest()
+     * for each request, after checking getNumOfWaitingRequests(), paying
+     * the cost of synchronisation for every request. As placeRequest()
+     * does not tell whether the request was accepted, the count returned
+     * is exact only if no other thread places requests at the same time;
+     * otherwise it is an upper bound.
+     * 
+     * @param rs the ServiceRequests to be accepted
+     * @return the number of requests accepted, i.e. the first ones in rs
+     * (for the default implementation, at most that number, see above)
+     */
+    public default int placeRequests(Collection<? extends ServiceRequest> rs) {
+        int accepted = 0;
+        for (ServiceRequest r : rs) {
+            if (getNumOfWaitingRequests() >= MAX_REQUESTS) {
+                break;
+            }
+            placeRequest(r);
+            accepted++;
+        }
+        return accepted;
+    }
+    
+    /** Fetch several requests at once from the waiting line, without waiting
+     * for new ones to arrive.
+     * 
+     * As for placeRequests(), the batching is meant to be done by the
+     * waiting line, e.g. with RequestQueue.drainTo(), and implementations
+     * are expected to override this method. The default implementation is
+     * only a fallback: it calls getNextRequest() while
+     * getNumOfWaitingRequests() says some request is waiting, stopping if
+     * it returns null. If getNextRequest() blocks when the waiting line is
+     * empty, another thread may take the last request between the check
+     * and the call, and the default implementation then waits after all;
+     * it never waits if there is a single consumer or if getNextRequest()
+     * returns null when there is no request.
+     * 
+     * @param max the maximum number of requests to fetch
+     * @param c the collection the requests are added to, in the order
+     * decided by the autorepair
+     * @return the number of requests added to c
+     * @throws IllegalArgumentException if max is negative
+     * @throws NullPointerException if c is null
+     */
+    public default int drainRequests(int max, Collection<? super ServiceRequest> c) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Invalid number of requests: " + max);
+        }
+        Objects.requireNonNull(c, "null collection");
+        
+        int n = 0;
+        while (n < max && getNumOfWaitingRequests() > 0) {
+            ServiceRequest r = getNextRequest();
+            if (r == null) {
+                break;
+            }
+            c.add(r);
+            n++;
+        }
+        return n;
+    }
+    
     /** Place the request in the default "chain" for delivery
      * By default, this will be the "auto+bike" chain, or the only one available, 
      * depending on the scenario. This method will likely be called by a Mechanic.
@@ -0,0 +1,19 @@
+
+package uk.ac.keele.csc20004.autorepair;
+
+/** An interface for objects that want to be notified when a request is
+ * still waiting after its deadline has passed.
+ *
+ */
+public interface DeadlineListener {
+
+    /** Called by a RequestQueue when it finds an overdue request, after it
+     * has expired or escalated it. This is called while holding the lock
+     * of the queue, so it should return quickly and must not use the queue.
+     *
+     * @param r the overdue request
+     * @param expired true if the request was removed from the waiting line,
+     * false if it was moved to the front
+     */
+    public void requestOverdue(ServiceRequest r, boolean expired);
+}
@@ -0,0 +1,88 @@
+
+package uk.ac.keele.csc20004.autorepair;
+
+/** Keeps track of how many deadlines are met and missed, for each type of
+ * service. Only requests with a deadline are counted; a request with two
+ * vehicles counts once for the service type of each vehicle.
+ *
+ * All methods are thread-safe.
+ */
+public class DeadlineStats {
+    private final int[] total;
+    private final int[] missed;
+
+    /** Creates an empty set of statistics.
+     */
+    public DeadlineStats() {
+        total = new int[Vehicle.SERVICE_TYPES];
+        missed = new int[Vehicle.SERVICE_TYPES];
+    }
+
+    /** Records the outcome of a request.
+     *
+     * @param r the request
+     * @param time when the request was completed or, if it expired, when it
+     * was removed from the waiting line (as System.currentTimeMillis())
+     * @param expired true if the request was never carried out
+     */
+    public synchronized void record(ServiceRequest r, long time, boolean expired) {
+        if (!r.hasDeadline()) {
+            return;
+        }
+
+        boolean miss = expired || time > r.getDeadline();
+        for (int i = 0; i < r.getNumOfVehicles(); i++) {
+            int type = r.getVehicle(i).getServiceType();
+            total[type]++;
+            if (miss) {
+                missed[type]++;
+            }
+        }
+    }
+
+    /** Get the number of vehicles with a deadline that were recorded.
+     *
+     * @param serviceType one of the *_SERVICE constants of Vehicle
+     * @return the number of vehicles recorded for that service type
+     */
+    public synchronized int getTotal(int serviceType) {
+        return total[serviceType];
+    }
+
+    /** Get the number of vehicles that missed their deadline.
+     *
+     * @param serviceType one of the *_SERVICE constants of Vehicle
+     * @return the number of late or expired vehicles for that service type
+     */
+    public synchronized int getMissed(int serviceType) {
+        return missed[serviceType];
+    }
+
+    /** Get the fraction of deadlines missed.
+     *
+     * @param serviceType one of the *_SERVICE constants of Vehicle
+     * @return the deadline-miss rate, between 0 and 1 (0 if nothing was recorded)
+     */
+    public synchronized double getMissRate(int serviceType) {
+        if (total[serviceType] == 0) {
+            return 0;
+        }
+        return (double) missed[serviceType] / total[serviceType];
+    }
+
+    /** Overridden toString() method to provide a concise textual visualisation
+     * of the statistics
+     *
+     * @return a string with the missed and total deadlines per service type
+     */
+    @Override
+    public synchronized String toString() {
+        String[] names = {"quick", "basic", "premium1", "premium2"};
+        StringBuilder sb = new StringBuilder("deadlines missed:");
+        for (int i = 0; i < Vehicle.SERVICE_TYPES; i++) {
+            sb.append(' ').append(names[i]).append(' ')
+              .append(missed[i]).append('/').append(total[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,559 @@
+
+package uk.ac.keele.csc20004.autorepair;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+
+/** A bounded waiting line for service requests, safe to be shared by the
+ * threads placing requests and the mechanics fetching them.
+ *
+ * Besides the usual single-request operations, the queue offers batch
+ * operations that move several requests while holding the lock only once,
+ * so that the cost of synchronisation is shared among all of them. This is
+ * meant to be used by implementations of Autorepair.placeRequests() and
+ * Autorepair.drainRequests(); none of the implementations in this project
+ * does so yet (the coursework one is a stub), so only the benchmark in the
+ * bench package exercises the native batch path.
+ *
+ * Requests are handed out in one of two orders (see Dispatch): first come
+ * first served, or earliest deadline first. Requests with a deadline are also
+ * kept in a timing wheel, which finds the overdue ones without scanning the
+ * whole queue; what happens to them is decided by the Overdue policy. The
+ * wheel advances whenever the queue is used, with a resolution of TICK_MILLIS.
+ *
+ * In FIFO mode the requests are kept in a linked list in arrival order, so
+ * that adding and removing a request takes constant time; only escalated
+ * requests go to a binary heap ordered by deadline, which is served first.
+ * In EDF mode all the requests are kept in the heap. The heap and the nodes
+ * of both structures are allocated at construction and recycled, and the
+ * clock is only read while some deadline is pending, so a FIFO queue used
+ * without deadlines costs about as much as a plain ring buffer.
+ */
+public class RequestQueue {
+    /** The order in which requests are handed out. */
+    public enum Dispatch {
+        /** first come, first served */
+        FIFO,
+        /** earliest deadline first; requests without a deadline come after
+         * all the others, in FIFO order */
+        EDF
+    }
+
+    /** What to do with a request still waiting after its deadline. */
+    public enum Overdue {
+        /** remove it from the waiting line, as it cannot be done in time */
+        EXPIRE,
+        /** move it to the front of the waiting line */
+        ESCALATE
+    }
+
+    /** the resolution of the timing wheel (millisec) */
+    public static final long TICK_MILLIS = 100;
+
+    /** the number of slots in the timing wheel; deadlines further away than
+     * WHEEL_SIZE ticks simply go round the wheel more than once */
+    public static final int WHEEL_SIZE = 512;
+
+    private final Dispatch dispatch;
+    private final Overdue overdue;
+    private final Node[] heap;
+    private int heapSize;
+    private Node first;
+    private Node last;
+    private int count;
+    private long nextSeq;
+    private final Node[] free;
+    private int numFree;
+
+    private final Node[] wheel;
+    private final LongSupplier clock;
+    private final long startTime;
+    private long currentTick;
+    private int inWheel;
+
+    private final DeadlineStats stats;
+    private final List<DeadlineListener> listeners;
+
+    /** Creates a FIFO queue that can hold up to Autorepair.MAX_REQUESTS
+     * requests; overdue requests are escalated.
+     */
+    public RequestQueue() {
+        this(Autorepair.MAX_REQUESTS);
+    }
+
+    /** Creates a FIFO queue with a given capacity; overdue requests are
+     * escalated.
+     *
+     * @param capacity the maximum number of requests waiting at the same time
+     */
+    public RequestQueue(int capacity) {
+        this(capacity, Dispatch.FIFO, Overdue.ESCALATE);
+    }
+
+    /** Creates a queue.
+     *
+     * @param capacity the maximum number of requests waiting at the same time
+     * @param dispatch the order in which requests are handed out
+     * @param overdue what to do with requests still waiting after their deadline
+     */
+    public RequestQueue(int capacity, Dispatch dispatch, Overdue overdue) {
+        this(capacity, dispatch, overdue, System::currentTimeMillis);
+    }
+
+    /** Creates a queue that reads the time from a given clock rather than
+     * from the system one, so that tests can control it.
+     *
+     * @param capacity the maximum number of requests waiting at the same time
+     * @param dispatch the order in which requests are handed out
+     * @param overdue what to do with requests still waiting after their deadline
+     * @param clock the current time, in the same unit as the deadlines (millisec)
+     */
+    RequestQueue(int capacity, Dispatch dispatch, Overdue overdue, LongSupplier clock) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+
+        this.dispatch = dispatch;
+        this.overdue = overdue;
+        heap = new Node[capacity];
+        heapSize = 0;
+        first = null;
+        last = null;
+        count = 0;
+        nextSeq = 0;
+        free = new Node[capacity];
+        for (int i = 0; i < capacity; i++) {
+            free[i] = new Node();
+        }
+        numFree = capacity;
+
+        wheel = new Node[WHEEL_SIZE];
+        this.clock = clock;
+        startTime = clock.getAsLong();
+        currentTick = 0;
+        inWheel = 0;
+
+        stats = new DeadlineStats();
+        listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /** Adds a request to the waiting line, if there is room for it.
+     *
+     * @param r the request
+     * @return true if the request was accepted, false if the queue is full
+     * @throws NullPointerException if r is null
+     */
+    public synchronized boolean offer(ServiceRequest r) {
+        Objects.requireNonNull(r, "null request");
+        advance();
+        if (count == heap.length) {
+            return false;
+        }
+
+        insert(r);
+        notifyAll();
+        return true;
+    }
+
+    /** Adds several requests to the waiting line, in the order of the
+     * collection, until the queue is full.
+     *
+     * @param rs the requests
+     * @return the number of requests accepted, i.e. the first ones in rs
+     * @throws NullPointerException if rs or any of its elements is null; in
+     * that case no request is added
+     */
+    public synchronized int offerAll(Collection<? extends ServiceRequest> rs) {
+        for (ServiceRequest r : rs) {
+            Objects.requireNonNull(r, "null request");
+        }
+
+        advance();
+        int accepted = 0;
+
+        for (ServiceRequest r : rs) {
+            if (count == heap.length) {
+                break;
+            }
+            insert(r);
+            accepted++;
+        }
+
+        if (accepted > 0) {
+            notifyAll();
+        }
+        return accepted;
+    }
+
+    /** Removes the request at the front of the line, waiting for one to be
+     * added if the queue is empty.
+     *
+     * @return the next request, in the order given by the dispatch mode
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized ServiceRequest take() throws InterruptedException {
+        advance();
+        while (count == 0) {
+            wait();
+            advance();
+        }
+        return removeFirst();
+    }
+
+    /** Removes the request at the front of the line, if any.
+     *
+     * @return the next request, in the order given by the dispatch mode, or
+     * null if the queue is empty
+     */
+    public synchronized ServiceRequest poll() {
+        advance();
+        if (count == 0) {
+            return null;
+        }
+        return removeFirst();
+    }
+
+    /** Removes up to max requests from the front of the line, without
+     * waiting if there are fewer.
+     *
+     * @param max the maximum number of requests to remove
+     * @param c the collection the requests are added to, in the order given
+     * by the dispatch mode
+     * @return the number of requests added to c
+     * @throws IllegalArgumentException if max is negative
+     * @throws NullPointerException if c is null
+     */
+    public synchronized int drainTo(int max, Collection<? super ServiceRequest> c) {
+        if (max < 0) {
+            throw new IllegalArgumentException("Invalid number of requests: " + max);
+        }
+        Objects.requireNonNull(c, "null collection");
+
+        advance();
+        int n = Math.min(max, count);
+
+        for (int i = 0; i < n; i++) {
+            c.add(removeFirst());
+        }
+
+        return n;
+    }
+
+    /** Get the number of requests in the queue.
+     *
+     * @return the number of requests waiting
+     */
+    public synchronized int size() {
+        advance();
+        return count;
+    }
+
+    /** Expires or escalates the requests whose deadline has passed. This is
+     * done anyway whenever the queue is used; calling this periodically
+     * makes sure overdue requests are dealt with even if the queue is idle.
+     */
+    public synchronized void expireOverdue() {
+        advance();
+    }
+
+    /** Records that a request taken from this queue has been carried out,
+     * so that it is counted in the deadline statistics. This is meant to be
+     * called by Autorepair.completeService().
+     *
+     * @param r the completed request
+     */
+    public void completed(ServiceRequest r) {
+        stats.record(r, clock.getAsLong(), false);
+    }
+
+    /** Get the deadline statistics: the requests that expired in this queue,
+     * and the ones passed to completed().
+     *
+     * @return the deadline-miss counters, per service type
+     */
+    public DeadlineStats getDeadlineStats() {
+        return stats;
+    }
+
+    /** Registers a listener to be notified of overdue requests.
+     *
+     * @param l the listener
+     */
+    public void addDeadlineListener(DeadlineListener l) {
+        listeners.add(l);
+    }
+
+    /** Removes a listener previously registered.
+     *
+     * @param l the listener
+     */
+    public void removeDeadlineListener(DeadlineListener l) {
+        listeners.remove(l);
+    }
+
+    // ---- the list and the heap ----
+
+    private void insert(ServiceRequest r) {
+        Node n = free[--numFree];
+        n.request = r;
+        n.seq = nextSeq++;
+        n.escalated = false;
+        count++;
+        if (dispatch == Dispatch.EDF) {
+            addToHeap(n);
+        } else {
+            append(n);
+        }
+
+        if (r.hasDeadline()) {
+            addToWheel(n);
+        }
+    }
+
+    /** Removes the request at the front of the line: the top of the heap,
+     * if any (escalated requests in FIFO mode, or all of them in EDF mode),
+     * otherwise the oldest request in the list.
+     */
+    private ServiceRequest removeFirst() {
+        return remove(heapSize > 0 ? heap[0] : first);
+    }
+
+    /** Removes a node from wherever it is, and recycles it. */
+    private ServiceRequest remove(Node n) {
+        if (n.index >= 0) {
+            removeFromHeap(n.index);
+        } else {
+            unlink(n);
+        }
+        count--;
+
+        if (n.slot >= 0) {
+            removeFromWheel(n);
+        }
+        ServiceRequest r = n.request;
+        n.request = null;
+        free[numFree++] = n;
+        return r;
+    }
+
+    private void append(Node n) {
+        n.prev = last;
+        if (last != null) {
+            last.next = n;
+        } else {
+            first = n;
+        }
+        last = n;
+    }
+
+    private void unlink(Node n) {
+        if (n.prev != null) {
+            n.prev.next = n.next;
+        } else {
+            first = n.next;
+        }
+        if (n.next != null) {
+            n.next.prev = n.prev;
+        } else {
+            last = n.prev;
+        }
+        n.prev = null;
+        n.next = null;
+    }
+
+    private void addToHeap(Node n) {
+        heap[heapSize] = n;
+        n.index = heapSize;
+        heapSize++;
+        siftUp(n.index);
+    }
+
+    private void removeFromHeap(int i) {
+        Node n = heap[i];
+        heapSize--;
+        if (i != heapSize) {
+            heap[i] = heap[heapSize];
+            heap[i].index = i;
+            heap[heapSize] = null;
+            siftDown(i);
+            siftUp(i);
+        } else {
+            heap[heapSize] = null;
+        }
+        n.index = -1;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!before(heap[i], heap[parent])) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int top = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && before(heap[left], heap[top])) {
+                top = left;
+            }
+            if (right < heapSize && before(heap[right], heap[top])) {
+                top = right;
+            }
+            if (top == i) {
+                return;
+            }
+            swap(i, top);
+            i = top;
+        }
+    }
+
+    private void swap(int i, int j) {
+        Node n = heap[i];
+        heap[i] = heap[j];
+        heap[j] = n;
+        heap[i].index = i;
+        heap[j].index = j;
+    }
+
+    /** The ordering of the heap: escalated requests come first, ordered by
+     * deadline; the others (only in EDF mode) follow by deadline as well.
+     * Ties are always broken by arrival order.
+     */
+    private boolean before(Node a, Node b) {
+        if (a.escalated != b.escalated) {
+            return a.escalated;
+        }
+        if (a.escalated || dispatch == Dispatch.EDF) {
+            long da = a.request.getDeadline();
+            long db = b.request.getDeadline();
+            if (da != db) {
+                return da < db;
+            }
+        }
+        return a.seq < b.seq;
+    }
+
+    // ---- the timing wheel ----
+
+    private void addToWheel(Node n) {
+        if (inWheel == 0) {
+            // the wheel is not advanced while empty, so catch up now
+            currentTick = Math.max(currentTick,
+                    (clock.getAsLong() - startTime) / TICK_MILLIS);
+        }
+        long deadlineTick = Math.floorDiv(n.request.getDeadline() - startTime + TICK_MILLIS - 1,
+                TICK_MILLIS);
+        // a deadline already passed is dealt with at the next tick
+        n.expiryTick = Math.max(deadlineTick, currentTick + 1);
+        n.slot = (int) (n.expiryTick % WHEEL_SIZE);
+
+        n.nextInSlot = wheel[n.slot];
+        if (n.nextInSlot != null) {
+            n.nextInSlot.prevInSlot = n;
+        }
+        wheel[n.slot] = n;
+        inWheel++;
+    }
+
+    private void removeFromWheel(Node n) {
+        if (n.prevInSlot != null) {
+            n.prevInSlot.nextInSlot = n.nextInSlot;
+        } else {
+            wheel[n.slot] = n.nextInSlot;
+        }
+        if (n.nextInSlot != null) {
+            n.nextInSlot.prevInSlot = n.prevInSlot;
+        }
+
+        n.prevInSlot = null;
+        n.nextInSlot = null;
+        n.slot = -1;
+        inWheel--;
+    }
+
+    /** Moves the wheel on to the current time, dealing with the requests in
+     * the slots it goes past. Only the slots for the elapsed ticks are
+     * visited, and at most once each.
+     */
+    private void advance() {
+        if (inWheel == 0) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        long tick = (now - startTime) / TICK_MILLIS;
+        if (tick <= currentTick) {
+            return;
+        }
+
+        long steps = Math.min(tick - currentTick, WHEEL_SIZE);
+        currentTick = tick;
+
+        for (long t = tick - steps + 1; t <= tick; t++) {
+            Node n = wheel[(int) (t % WHEEL_SIZE)];
+            while (n != null) {
+                Node next = n.nextInSlot;
+                if (n.expiryTick <= tick) {
+                    removeFromWheel(n);
+                    handleOverdue(n, now);
+                }
+                n = next;
+            }
+        }
+    }
+
+    private void handleOverdue(Node n, long now) {
+        ServiceRequest r = n.request;
+        boolean expired = (overdue == Overdue.EXPIRE);
+        if (expired) {
+            remove(n);
+            stats.record(r, now, true);
+        } else {
+            n.escalated = true;
+            if (n.index >= 0) {
+                siftUp(n.index);
+            } else {
+                unlink(n);
+                addToHeap(n);
+            }
+        }
+
+        for (DeadlineListener l : listeners) {
+            l.requestOverdue(r, expired);
+        }
+    }
+
+    /** A request in the queue, with its position in the list or the heap
+     * and, if it has a deadline, in the timing wheel. Nodes are reused once
+     * their request leaves the queue.
+     */
+    private static class Node {
+        ServiceRequest request;
+        long seq;
+        boolean escalated;
+
+        // the position in the heap, or -1 if the node is in the list
+        int index;
+        Node prev;
+        Node next;
+
+        long expiryTick;
+        int slot;
+        Node prevInSlot;
+        Node nextInSlot;
+
+        Node() {
+            index = -1;
+            slot = -1;
+        }
+    }
+}
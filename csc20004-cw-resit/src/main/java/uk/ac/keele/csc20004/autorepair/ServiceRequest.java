@@ -3,7 +3,9 @@
 package uk.ac.keele.csc20004.autorepair;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 
 /** An implementation of an request for an autorepair. 
@@ -15,7 +17,13 @@ import java.util.Random;
  * @author Marco Ortolani
  */
 public class ServiceRequest implements Iterable<Vehicle> {
+    /** the value of the deadline for requests that have none */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    
     private final ArrayList<Vehicle> vehicles;
+    private final List<Vehicle> readOnlyVehicles;
+    private final long deadline;
+    private String description;
         
     /** This constructor initialises the request with only 1 vehicle to service.
      * 
@@ -23,8 +31,22 @@ public class ServiceRequest implements Iterable<Vehicle> {
  requested.
      */
     public ServiceRequest(Vehicle v) {
+        this(v, NO_DEADLINE);
+    }
+
+    /** This constructor initialises the request with only 1 vehicle to service,
+     * which the customer needs back by a given time.
+     * 
+     * @param v a Vehicle object, specifying the vehicle and type of service 
+     * requested.
+     * @param deadline when the vehicle is needed back, as 
+     * System.currentTimeMillis(), or NO_DEADLINE
+     */
+    public ServiceRequest(Vehicle v, long deadline) {
         vehicles = new ArrayList<Vehicle>(1);
         vehicles.add(v);
+        readOnlyVehicles = Collections.unmodifiableList(vehicles);
+        this.deadline = deadline;
     }
 
     /** This constructor initialises the request with 2 vehicles to service.
@@ -35,32 +57,88 @@ public class ServiceRequest implements Iterable<Vehicle> {
  service is requested
      */
     public ServiceRequest(Vehicle v1, Vehicle v2) {
+        this(v1, v2, NO_DEADLINE);
+    }
+
+    /** This constructor initialises the request with 2 vehicles to service,
+     * which the customer needs back by a given time.
+     * 
+     * @param v1 a Vehicle object, specifying the first vehicle for which a 
+     * service is requested
+     * @param v2 a Vehicle object, specifying the second vehicle for which a 
+     * service is requested
+     * @param deadline when the vehicles are needed back, as 
+     * System.currentTimeMillis(), or NO_DEADLINE
+     */
+    public ServiceRequest(Vehicle v1, Vehicle v2, long deadline) {
         vehicles = new ArrayList<Vehicle>(2);
         vehicles.add(v1);
         vehicles.add(v2);
+        readOnlyVehicles = Collections.unmodifiableList(vehicles);
+        this.deadline = deadline;
     }
 
     /** Builds an iterator for this order. In this implementation an ArrayList is
-     * used internally as a data structure, so its iterator is returned.
+     * used internally as a data structure, so a read-only iterator over it is
+     * returned: a request cannot be changed once created. The read-only view
+     * is built once, so that only the iterator itself is allocated.
      * 
      * @return the iterator to go through the pizzas in the order
      */
     @Override
     public Iterator<Vehicle> iterator() {
-        return vehicles.iterator();
+        return readOnlyVehicles.iterator();
     }
     
-    private ServiceRequest createRandomRequest() {
-        Random random = new Random();
-
+    /** Checks whether the customer needs the vehicles back by a given time.
+     * 
+     * @return true if the request has a deadline
+     */
+    public boolean hasDeadline() {
+        return deadline != NO_DEADLINE;
+    }
+    
+    /** Get the time by which the customer needs the vehicles back.
+     * 
+     * @return the deadline, as System.currentTimeMillis(), or NO_DEADLINE
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+    
+    /** Get the number of vehicles in this request.
+     * 
+     * @return either 1 or 2
+     */
+    public int getNumOfVehicles() {
+        return vehicles.size();
+    }
+    
+    /** Get one of the vehicles in this request without creating an iterator.
+     * 
+     * @param index the position of the vehicle, from 0 to getNumOfVehicles()-1
+     * @return the vehicle at that position
+     */
+    public Vehicle getVehicle(int index) {
+        return vehicles.get(index);
+    }
+    
+    /** Builds a request with 1 or 2 vehicles, each with a random vehicle type
+     * and a random type of service.
+     *
+     * @param random the source of randomness (pass a seeded Random to get
+     * reproducible sequences of requests)
+     * @return a new random ServiceRequest
+     */
+    public static ServiceRequest createRandomRequest(Random random) {
         Vehicle[] v = new Vehicle[2];
-        
+
         // create at most 2 random vehicles
         int quantity = random.nextInt(2)+1;
-        
+
         for (int i = 0; i < quantity; i++) {
             int vehicleType = random.nextInt(2);
-            int serviceType = random.nextInt(Vehicle.SERVICE_TYPES)+1;
+            int serviceType = random.nextInt(Vehicle.SERVICE_TYPES);
             switch (serviceType) {
                 case Vehicle.QUICK_SERVICE: 
                     v[i] = Vehicle.createQuickService(vehicleType);
@@ -85,21 +163,28 @@ public class ServiceRequest implements Iterable<Vehicle> {
     }
     
     /** Overridden toString() method to provide a concise textual visualisation
-     * of the request
+     * of the request. A request never changes, so the description is built
+     * the first time it is needed and then reused.
      * 
      * @return a string representing the vehicles in the request and the type of
      * service
      */
     @Override
     public String toString() {
-        String description = "[ ";
-        
-        for (Vehicle v : vehicles) {
-            description += v.toString() + "; ";
+        // a benign race: at worst, two threads build equal strings
+        String d = description;
+        if (d == null) {
+            StringBuilder sb = new StringBuilder(32 * vehicles.size() + 4);
+            sb.append("[ ");
+            for (Vehicle v : vehicles) {
+                sb.append(v.toString()).append("; ");
+            }
+            sb.append(" ]");
+            
+            d = sb.toString();
+            description = d;
         }
         
-        description += " ]";
-        
-        return description;
+        return d;
     }
 }
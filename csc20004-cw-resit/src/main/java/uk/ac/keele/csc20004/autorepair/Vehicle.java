@@ -26,7 +26,22 @@ public class Vehicle {
     public static final int AUTO = 0;
     public static final int BIKE = 1;
     
+    // Parts are immutable, so the same instances can be used for all the checks
+    private static final Part OIL_FILTER = Part.createOilFilter();
+    private static final Part BATTERY = Part.createBattery();
+    private static final Part BRAKES = Part.createBrakes();
+    private static final Part TYRES = Part.createTyres();
+    
+    // the descriptions returned by toString(), indexed by vehicle and service type
+    private static final String[][] DESCRIPTIONS = {
+        {"auto - quick (oil+battery)", "auto - basic (oil+brakes)",
+         "auto - premium1 (brakes+tyres)", "auto - premium2 (tyres+battery)"},
+        {"bike - quick (oil+battery)", "bike - basic (oil+brakes)",
+         "bike - premium1 (brakes+tyres)", "bike - premium2 (tyres+battery)"}
+    };
+    
     private final int vehicleType;
+    private final int serviceType;
     private final ArrayList<Part> faultyParts;
     private final int serviceTime;
 
@@ -44,12 +59,13 @@ public class Vehicle {
      * 
      */
     private Vehicle(int type, Part[] in, int servTime) {
-        int serviceType = checkParts(in);
-        if (serviceType < 0 || serviceType >= Vehicle.SERVICE_TYPES) {
+        int service = checkParts(in);
+        if (service < 0 || service >= Vehicle.SERVICE_TYPES) {
             throw new IllegalArgumentException("Wrong sequence of parts");
         }
         
         vehicleType = type;
+        serviceType = service;
         faultyParts = new ArrayList<>(in.length);
         Collections.addAll(faultyParts, in);
         
@@ -226,14 +242,30 @@ public class Vehicle {
         return (vehicleType == BIKE);
     }    
 
+    /** Get the type of vehicle to be serviced.
+     * 
+     * @return either AUTO or BIKE
+     */
+    public int getVehicleType() {
+        return vehicleType;
+    }
+
+    /** Get the type of service requested, as inferred from the parts when
+     * the Vehicle was created.
+     * 
+     * @return one of QUICK_SERVICE, BASIC_SERVICE, PREMIUM1_SERVICE or
+     * PREMIUM2_SERVICE
+     */
+    public int getServiceType() {
+        return serviceType;
+    }
+
     /** Helper method to check if this service involves substituting the oil filter.
      * 
      * @return true if the service requires substituting the oil filter
      */
     public boolean hasOilFilter() {
-        Part oilFilter = Part.createOilFilter();
-
-        return faultyParts.contains(oilFilter);
+        return faultyParts.contains(OIL_FILTER);
     }
 
     /** Helper method to check if this service involves substituting the battery.
@@ -241,12 +273,7 @@ public class Vehicle {
      * @return true if the service requires substituting the battery
      */
     public boolean hasBattery() {
-        Part oilFilter = Part.createOilFilter();
-        Part battery = Part.createBattery();
-        Part brakes = Part.createBrakes();
-        Part tyres = Part.createTyres();
-
-        return faultyParts.contains(battery);
+        return faultyParts.contains(BATTERY);
     }
 
     /** Helper method to check if this service involves substituting the brakes.
@@ -254,9 +281,7 @@ public class Vehicle {
      * @return true if the service requires substituting the brakes
      */
     public boolean hasBrakes() {
-        Part brakes = Part.createBrakes();
-
-        return faultyParts.contains(brakes);
+        return faultyParts.contains(BRAKES);
     }
 
     /** Helper method to check if this service involves substituting the tyres.
@@ -264,9 +289,7 @@ public class Vehicle {
      * @return true if the service requires substituting the tyres
      */
     public boolean hasTyres() {
-        Part tyres = Part.createTyres();
-
-        return faultyParts.contains(tyres);
+        return faultyParts.contains(TYRES);
     }
 
     
@@ -288,6 +311,18 @@ public class Vehicle {
         return serviceTime;
     }
     
+    /** Helper method to get the textual description of a type of service
+     * on a type of vehicle, as returned by toString(). The descriptions are
+     * built only once, so this does not allocate anything.
+     * 
+     * @param vehicleType either AUTO or BIKE
+     * @param serviceType one of the *_SERVICE constants
+     * @return a string representing the vehicle and the type of service
+     */
+    public static String describe(int vehicleType, int serviceType) {
+        return DESCRIPTIONS[vehicleType][serviceType];
+    }
+    
     /** Overridden toString() method to provide a concise textual visualisation
      * of the service
      * 
@@ -295,11 +330,6 @@ public class Vehicle {
      */
     @Override
     public String toString(){
-        String vehicleDescr = (vehicleType == AUTO) ? "auto": "bike";
-        if(this.isQuickService()) return vehicleDescr + " - quick (oil+battery)";
-        else if(this.isBasicService()) return vehicleDescr + " - basic (oil+brakes)";
-        else if(this.isPremium1Service()) return vehicleDescr + " - premium1 (brakes+tyres)";
-        else if(this.isPremium2Service()) return vehicleDescr + " - premium2 (tyres+battery)";
-        else return super.toString();
+        return describe(vehicleType, serviceType);
     }
 }
@@ -0,0 +1,263 @@
+
+package uk.ac.keele.csc20004.autorepair.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.Part;
+import uk.ac.keele.csc20004.autorepair.RequestQueue;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+
+/** Measures the amortised cost per request of Autorepair.placeRequests() and
+ * Autorepair.drainRequests(), comparing the default implementations of the
+ * interface (one placeRequest() or getNextRequest() per request) with native
+ * ones built on RequestQueue.offerAll() and RequestQueue.drainTo().
+ *
+ * A number of producer threads place requests into an autorepair whose
+ * waiting line holds Autorepair.MAX_REQUESTS requests, while as many consumer
+ * threads take them out; a producer finding the line full or a consumer
+ * finding it empty simply tries again. The average time per request is
+ * printed for each batch size; batch size 1 uses placeRequest() and
+ * getNextRequest() directly.
+ *
+ * Run with: java uk.ac.keele.csc20004.autorepair.bench.RequestQueueBenchmark [threads]
+ */
+public class RequestQueueBenchmark {
+    private static final int REQUESTS_PER_PRODUCER = 200000;
+    private static final int[] BATCH_SIZES = {1, 2, 5, 10, 25};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private final ServiceRequest[] requests;
+    private final int threads;
+
+    /** Creates the benchmark.
+     *
+     * @param threads the number of producers, and of consumers
+     */
+    public RequestQueueBenchmark(int threads) {
+        this.threads = threads;
+
+        Random random = new Random(20004);
+        requests = new ServiceRequest[64];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = ServiceRequest.createRandomRequest(random);
+        }
+    }
+
+    /** Moves all requests through a new autorepair.
+     *
+     * @param batch the number of requests placed and drained per operation;
+     * 1 means the single-request operations are used
+     * @param nativeBatches true to use the batch operations of RequestQueue,
+     * false to use the default ones of Autorepair
+     * @return the elapsed time (nanosec)
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public long round(final int batch, boolean nativeBatches) throws InterruptedException {
+        final Autorepair autorepair = nativeBatches ? new NativeBatchAutorepair() : new QueueAutorepair();
+        List<Thread> workers = new ArrayList<>(2 * threads);
+
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> produce(autorepair, batch)));
+            workers.add(new Thread(() -> consume(autorepair, batch, REQUESTS_PER_PRODUCER)));
+        }
+
+        long start = System.nanoTime();
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void produce(Autorepair autorepair, int batch) {
+        List<ServiceRequest> pending = new ArrayList<>(batch);
+        int next = 0;
+
+        while (next < REQUESTS_PER_PRODUCER) {
+            if (batch == 1) {
+                autorepair.placeRequest(requests[next % requests.length]);
+                next++;
+                continue;
+            }
+
+            while (pending.size() < batch && next + pending.size() < REQUESTS_PER_PRODUCER) {
+                pending.add(requests[(next + pending.size()) % requests.length]);
+            }
+            int accepted = autorepair.placeRequests(pending);
+            if (accepted == 0) {
+                Thread.yield();
+            }
+            pending.subList(0, accepted).clear();
+            next += accepted;
+        }
+    }
+
+    private void consume(Autorepair autorepair, int batch, long total) {
+        List<ServiceRequest> taken = new ArrayList<>(batch);
+        long done = 0;
+
+        while (done < total) {
+            int n;
+            if (batch == 1) {
+                n = (autorepair.getNextRequest() != null) ? 1 : 0;
+            } else {
+                taken.clear();
+                n = autorepair.drainRequests((int) Math.min(batch, total - done), taken);
+            }
+
+            if (n == 0) {
+                Thread.yield();
+            }
+            done += n;
+        }
+    }
+
+    /** Runs the benchmark.
+     *
+     * @param args optionally, the number of producer (and consumer) threads;
+     * by default, half the available cores, but at least 1
+     * @throws InterruptedException if interrupted while running
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        if (args.length > 0) {
+            threads = Integer.parseInt(args[0]);
+        }
+
+        RequestQueueBenchmark benchmark = new RequestQueueBenchmark(threads);
+        long total = (long) threads * REQUESTS_PER_PRODUCER;
+        System.out.println(threads + " producers, " + threads + " consumers, "
+                + total + " requests per round");
+
+        for (int batch : BATCH_SIZES) {
+            double looped = (double) benchmark.best(batch, false) / total;
+            if (batch == 1) {
+                System.out.printf("batch %2d: %6.1f ns/request (single operations)%n", batch, looped);
+            } else {
+                double batched = (double) benchmark.best(batch, true) / total;
+                System.out.printf("batch %2d: %6.1f ns/request default, %6.1f ns/request native%n",
+                        batch, looped, batched);
+            }
+        }
+    }
+
+    private long best(int batch, boolean nativeBatches) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            round(batch, nativeBatches);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            best = Math.min(best, round(batch, nativeBatches));
+        }
+        return best;
+    }
+
+    /** A minimal autorepair whose waiting line is a RequestQueue, keeping the
+     * default batch operations of Autorepair. placeRequest() retries until
+     * the request fits, so that no request is lost by the benchmark; the
+     * shelves are not used.
+     */
+    private static class QueueAutorepair implements Autorepair {
+        protected final RequestQueue queue = new RequestQueue();
+
+        @Override
+        public void placeRequest(ServiceRequest r) {
+            while (!queue.offer(r)) {
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public ServiceRequest getNextRequest() {
+            return queue.poll();
+        }
+
+        @Override
+        public void completeService(ServiceRequest r) {
+            queue.completed(r);
+        }
+
+        @Override
+        public int getNumOfWaitingRequests() {
+            return queue.size();
+        }
+
+        @Override
+        public Part fetchOilFilter() {
+            return Part.createOilFilter();
+        }
+
+        @Override
+        public Part fetchBattery() {
+            return Part.createBattery();
+        }
+
+        @Override
+        public Part fetchBrakes() {
+            return Part.createBrakes();
+        }
+
+        @Override
+        public Part fetchTyres() {
+            return Part.createTyres();
+        }
+
+        @Override
+        public void refillOilFilter() {
+        }
+
+        @Override
+        public void refillBattery() {
+        }
+
+        @Override
+        public void refillBrakes() {
+        }
+
+        @Override
+        public void refillTyres() {
+        }
+
+        @Override
+        public int getOilFilterStorageLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getBatteryStorageLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getBrakesStorageLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getTyresStorageLevel() {
+            return 0;
+        }
+    }
+
+    /** The same autorepair, with the batch operations implemented natively
+     * by the RequestQueue.
+     */
+    private static class NativeBatchAutorepair extends QueueAutorepair {
+        @Override
+        public int placeRequests(Collection<? extends ServiceRequest> rs) {
+            return queue.offerAll(rs);
+        }
+
+        @Override
+        public int drainRequests(int max, Collection<? super ServiceRequest> c) {
+            return queue.drainTo(max, c);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+
+package uk.ac.keele.csc20004.autorepair.logging;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+/** A log of what happens to service requests, designed to be cheap for the
+ * threads doing the actual work.
+ *
+ * Logging an event does not build any string nor allocate any object: the
+ * time, the type of event and the codes of the vehicles in the request are
+ * copied into a ring buffer allocated once at construction. A background
+ * thread takes the entries out of the buffer, in the order they were logged,
+ * and formats them onto the output stream.
+ *
+ * Any number of threads may log at the same time. If the background thread
+ * falls so far behind that the buffer is full, new entries are dropped rather
+ * than slowing down the caller; getDropped() tells how many. When there is
+ * nothing to print, the background thread sleeps until the next entry is
+ * logged.
+ */
+public class RequestLog implements AutoCloseable {
+    public static final int PLACED    = 0;
+    public static final int REJECTED  = 1;
+    public static final int STARTED   = 2;
+    public static final int COMPLETED = 3;
+
+    private static final String[] EVENT_NAMES = {"placed", "rejected", "started", "completed"};
+
+    /** no vehicle in this position of the request */
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final long[] times;
+    private final int[] events;
+    private final int[] vehicleCodes;
+    private final AtomicLongArray published;
+    private final AtomicLong head;
+    private final AtomicLong dropped;
+    private volatile long tail;
+    private volatile boolean closed;
+    private volatile boolean sleeping;
+
+    private final PrintStream out;
+    private final Thread writer;
+
+    /** Creates a log and starts its background thread.
+     *
+     * @param out where the formatted entries are printed
+     * @param capacity the maximum number of entries waiting to be printed
+     */
+    public RequestLog(PrintStream out, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+
+        this.out = out;
+        this.capacity = capacity;
+        times = new long[capacity];
+        events = new int[capacity];
+        vehicleCodes = new int[2 * capacity];
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        head = new AtomicLong(0);
+        dropped = new AtomicLong(0);
+        tail = 0;
+        closed = false;
+        sleeping = false;
+
+        writer = new Thread(this::drain, "request-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Logs an event about a request.
+     *
+     * @param event one of PLACED, REJECTED, STARTED or COMPLETED
+     * @param r the request
+     * @return true if the entry was logged, false if it was dropped because
+     * the buffer is full or the log is closed
+     * @throws IllegalArgumentException if event is not one of the above
+     * @throws NullPointerException if r is null
+     */
+    public boolean log(int event, ServiceRequest r) {
+        // checked before claiming a slot: a slot claimed and never published
+        // would stop the background thread for good
+        if (event < PLACED || event > COMPLETED) {
+            throw new IllegalArgumentException("Unknown event: " + event);
+        }
+        if (r == null) {
+            throw new NullPointerException("Cannot log a null request");
+        }
+
+        long seq;
+        do {
+            seq = head.get();
+            if (closed || seq - tail >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+
+        int slot = (int) (seq % capacity);
+        times[slot] = System.currentTimeMillis();
+        events[slot] = event;
+        vehicleCodes[2 * slot] = code(r, 0);
+        vehicleCodes[2 * slot + 1] = code(r, 1);
+
+        // makes the entry visible to the background thread
+        published.set(slot, seq);
+        if (sleeping) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /** Get the number of entries that were lost.
+     *
+     * @return the number of calls to log() that returned false, plus the
+     * entries the background thread failed to format and skipped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /** Stops accepting entries, waits for the ones already logged to be
+     * printed and terminates the background thread. Entries logged by
+     * other threads while the log is being closed may be lost. If the
+     * calling thread is interrupted while waiting, this returns straight
+     * away with the interrupt flag set, leaving the background thread to
+     * finish on its own.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+
+    /** The body of the background thread: prints the entries in order.
+     */
+    private void drain() {
+        StringBuilder sb = new StringBuilder(128);
+
+        while (true) {
+            long seq = tail;
+            int slot = (int) (seq % capacity);
+
+            if (published.get(slot) != seq) {
+                if (closed && head.get() == seq) {
+                    return;
+                }
+
+                // announce the sleep, then check again: an entry published
+                // after the check is sure to see the flag and wake us up
+                sleeping = true;
+                if (published.get(slot) != seq && !closed) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+                continue;
+            }
+
+            boolean formatted;
+            try {
+                sb.setLength(0);
+                sb.append(times[slot]).append(' ').append(EVENT_NAMES[events[slot]]).append(" [ ");
+                appendVehicle(sb, vehicleCodes[2 * slot]);
+                appendVehicle(sb, vehicleCodes[2 * slot + 1]);
+                sb.append(" ]");
+                formatted = true;
+            } catch (RuntimeException e) {
+                // a malformed entry is skipped, not allowed to stop the log
+                formatted = false;
+            }
+
+            // the slot may be reused as soon as tail moves on
+            tail = seq + 1;
+            if (formatted) {
+                out.println(sb);
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    /** Encodes the type of vehicle and of service of one of the vehicles of
+     * a request into a single int.
+     *
+     * @param r the request
+     * @param index the position of the vehicle in the request
+     * @return the code of the vehicle, or NONE if there is no such vehicle
+     */
+    private static int code(ServiceRequest r, int index) {
+        if (index >= r.getNumOfVehicles()) {
+            return NONE;
+        }
+
+        Vehicle v = r.getVehicle(index);
+        return v.getVehicleType() * Vehicle.SERVICE_TYPES + v.getServiceType();
+    }
+
+    private static void appendVehicle(StringBuilder sb, int code) {
+        if (code != NONE) {
+            sb.append(Vehicle.describe(code / Vehicle.SERVICE_TYPES, code % Vehicle.SERVICE_TYPES))
+              .append("; ");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/** A tool to find the cheapest Configuration of the autorepair that meets a
+ * target service level for a given LoadProfile.
+ *
+ * The planner simulates every combination of number of mechanics, shelf
+ * levels and refill cadence in the search space, running the simulations in
+ * parallel on all the available cores. All configurations are simulated
+ * with the same seeds, so they are compared against exactly the same
+ * sequences of requests.
+ */
+public class CapacityPlanner {
+    private final LoadProfile profile;
+    private final CostModel costModel;
+    private final long targetP95Wait;
+    private final long[] seeds;
+
+    /** Creates a planner.
+     *
+     * @param profile the expected load
+     * @param costModel the cost of each configuration
+     * @param targetP95Wait the maximum acceptable 95th percentile of the time
+     * a request waits before a mechanic picks it up (millisec)
+     * @param runs how many runs (with different seeds) to simulate for
+     * each configuration
+     */
+    public CapacityPlanner(LoadProfile profile, CostModel costModel,
+            long targetP95Wait, int runs) {
+        if (runs < 1) {
+            throw new IllegalArgumentException("At least one run is needed");
+        }
+
+        this.profile = profile;
+        this.costModel = costModel;
+        this.targetP95Wait = targetP95Wait;
+
+        seeds = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            seeds[i] = 20004L + i;
+        }
+    }
+
+    /** Simulates all the configurations in the search space.
+     * Each shelf level is chosen independently from stockLevels, so the
+     * search space has (maxMechanics - minMechanics + 1) *
+     * stockLevels.length^4 * refillIntervals.length points.
+     *
+     * @param minMechanics the smallest number of mechanics to try
+     * @param maxMechanics the largest number of mechanics to try
+     * @param stockLevels the initial levels to try for each shelf
+     * @param refillIntervals the refill cadences to try (millisec)
+     * @return the results for all configurations, ordered by increasing cost
+     * (ties are broken by the p95 waiting time)
+     * @throws InterruptedException if interrupted while waiting for the
+     * simulations to finish
+     */
+    public List<SimulationResult> plan(int minMechanics, int maxMechanics,
+            int[] stockLevels, long[] refillIntervals) throws InterruptedException {
+        List<Simulation> simulations = new ArrayList<>();
+        for (int m = minMechanics; m <= maxMechanics; m++) {
+            for (long interval : refillIntervals) {
+                for (int oil : stockLevels) {
+                    for (int battery : stockLevels) {
+                        for (int brakes : stockLevels) {
+                            for (int tyres : stockLevels) {
+                                int[] stock = {oil, battery, brakes, tyres};
+                                Configuration c = new Configuration(m, stock, interval);
+                                simulations.add(new Simulation(c, profile, costModel, seeds));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(cores);
+        List<SimulationResult> results = new ArrayList<>(simulations.size());
+        try {
+            for (Future<SimulationResult> f : executor.invokeAll(simulations)) {
+                results.add(f.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Collections.sort(results, Comparator.comparingDouble(SimulationResult::getCost)
+                .thenComparingLong(SimulationResult::getP95Wait));
+
+        return results;
+    }
+
+    /** Picks the cheapest configuration that meets the target service level.
+     *
+     * @param results the results returned by plan()
+     * @return the cheapest result meeting the target, or null if none does
+     */
+    public SimulationResult cheapest(List<SimulationResult> results) {
+        for (SimulationResult r : results) {
+            if (r.meets(targetP95Wait)) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    /** Runs the planner on a sample profile: an hour and a half with a busier
+     * period in the middle, and a target p95 wait of 1 minute.
+     *
+     * @param args not used
+     * @throws InterruptedException if interrupted while planning
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long halfHour = 30 * 60 * 1000;
+
+        LoadProfile profile = new LoadProfile();
+        profile.addPhase(halfHour, 60);
+        profile.addPhase(halfHour, 150);
+        profile.addPhase(halfHour, 60);
+
+        CostModel costModel = new CostModel(100, 1, 2);
+        CapacityPlanner planner = new CapacityPlanner(profile, costModel, 60 * 1000, 3);
+
+        long start = System.currentTimeMillis();
+        List<SimulationResult> results = planner.plan(1, 8,
+                new int[] {5, 10, 20}, new long[] {200, 500, 1000, 2000});
+        long elapsed = System.currentTimeMillis() - start;
+
+        System.out.println("Simulated " + results.size() + " configurations in "
+                + elapsed + "ms");
+
+        SimulationResult best = planner.cheapest(results);
+        if (best == null) {
+            System.out.println("No configuration meets the target");
+        } else {
+            System.out.println("Cheapest: " + best);
+        }
+    }
+}
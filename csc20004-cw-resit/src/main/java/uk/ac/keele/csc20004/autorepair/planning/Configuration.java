@@ -0,0 +1,95 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+import java.util.Arrays;
+
+/** One point of the configuration space explored by the CapacityPlanner:
+ * how many mechanics are working, how many parts are on each shelf at the
+ * start of the day and how often the shelves are refilled.
+ *
+ * Objects of this class are immutable.
+ */
+public class Configuration {
+    /** The shelves are indexed as follows in the arrays of stock levels */
+    public static final int OIL_FILTER = 0;
+    public static final int BATTERY    = 1;
+    public static final int BRAKES     = 2;
+    public static final int TYRES      = 3;
+    public static final int SHELVES    = 4;
+
+    private final int mechanics;
+    private final int[] stock;
+    private final long refillInterval;
+
+    /** Creates a configuration.
+     *
+     * @param mechanics the number of mechanics (at least 1)
+     * @param stock the initial level of the shelves, indexed by OIL_FILTER,
+     * BATTERY, BRAKES and TYRES. This is also the capacity of each shelf: a
+     * refill never puts more parts on a shelf than it held initially
+     * @param refillInterval every how many millisec one part is put back on
+     * each shelf that is not full
+     */
+    public Configuration(int mechanics, int[] stock, long refillInterval) {
+        if (mechanics < 1 || stock.length != SHELVES || refillInterval <= 0) {
+            throw new IllegalArgumentException("Invalid configuration");
+        }
+        for (int level : stock) {
+            if (level < 1) {
+                throw new IllegalArgumentException("Each shelf needs at least one part");
+            }
+        }
+
+        this.mechanics = mechanics;
+        this.stock = stock.clone();
+        this.refillInterval = refillInterval;
+    }
+
+    /** Get the number of mechanics.
+     *
+     * @return the number of mechanics working in the autorepair
+     */
+    public int getMechanics() {
+        return mechanics;
+    }
+
+    /** Get the initial level (and capacity) of a shelf.
+     *
+     * @param shelf one of OIL_FILTER, BATTERY, BRAKES or TYRES
+     * @return the number of parts on the shelf at the start
+     */
+    public int getStock(int shelf) {
+        return stock[shelf];
+    }
+
+    /** Get the total number of parts stocked on all shelves.
+     *
+     * @return the sum of the initial levels of all shelves
+     */
+    public int getTotalStock() {
+        int total = 0;
+        for (int level : stock) {
+            total += level;
+        }
+        return total;
+    }
+
+    /** Get the refill cadence.
+     *
+     * @return the time between two refills (millisec)
+     */
+    public long getRefillInterval() {
+        return refillInterval;
+    }
+
+    /** Overridden toString() method to provide a concise textual visualisation
+     * of the configuration
+     *
+     * @return a string with the mechanics, the stock levels and the refill cadence
+     */
+    @Override
+    public String toString() {
+        return mechanics + " mechanics, stock (oil, battery, brakes, tyres) "
+                + Arrays.toString(stock) + ", refill every " + refillInterval + "ms";
+    }
+}
@@ -0,0 +1,38 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+/** The (relative) cost of running the autorepair with a given Configuration.
+ * The actual unit does not matter, as costs are only used to compare
+ * configurations with each other.
+ */
+public class CostModel {
+    private final double mechanicCost;
+    private final double stockUnitCost;
+    private final double refillCost;
+
+    /** Creates a cost model.
+     *
+     * @param mechanicCost the cost of one mechanic for the whole simulated period
+     * @param stockUnitCost the cost of keeping one part on the shelves
+     * @param refillCost the cost of a single refill round
+     */
+    public CostModel(double mechanicCost, double stockUnitCost, double refillCost) {
+        this.mechanicCost = mechanicCost;
+        this.stockUnitCost = stockUnitCost;
+        this.refillCost = refillCost;
+    }
+
+    /** Computes the cost of a configuration over the given period.
+     *
+     * @param c the configuration
+     * @param durationMillis the length of the period
+     * @return the total cost of mechanics, stock and refill rounds
+     */
+    public double cost(Configuration c, long durationMillis) {
+        long refills = durationMillis / c.getRefillInterval();
+
+        return c.getMechanics() * mechanicCost
+                + c.getTotalStock() * stockUnitCost
+                + refills * refillCost;
+    }
+}
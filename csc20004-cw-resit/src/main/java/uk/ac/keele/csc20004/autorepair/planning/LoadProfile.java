@@ -0,0 +1,95 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** The expected load on the autorepair, described as a sequence of phases.
+ * During each phase requests arrive at random (Poisson arrivals) with a given
+ * average rate, so that a profile can describe e.g. a quiet morning followed
+ * by a lunchtime peak.
+ *
+ * All times are in (simulated) milliseconds, as for Vehicle.getServiceTime().
+ */
+public class LoadProfile {
+    private final List<Long> phaseEnds;
+    private final List<Double> phaseRates;
+    private long duration;
+
+    /** Creates an empty profile; phases are added with addPhase().
+     */
+    public LoadProfile() {
+        phaseEnds = new ArrayList<>();
+        phaseRates = new ArrayList<>();
+        duration = 0;
+    }
+
+    /** Helper method to build a profile with a single phase.
+     *
+     * @param durationMillis how long requests keep arriving
+     * @param requestsPerMinute the average number of requests per minute
+     * @return a LoadProfile with constant average load
+     */
+    public static LoadProfile steady(long durationMillis, double requestsPerMinute) {
+        LoadProfile profile = new LoadProfile();
+        profile.addPhase(durationMillis, requestsPerMinute);
+        return profile;
+    }
+
+    /** Appends a phase to the end of the profile.
+     *
+     * @param durationMillis the length of the phase
+     * @param requestsPerMinute the average number of requests per minute
+     * during the phase; 0 means no requests arrive during the phase
+     */
+    public void addPhase(long durationMillis, double requestsPerMinute) {
+        if (durationMillis <= 0 || requestsPerMinute < 0) {
+            throw new IllegalArgumentException("Invalid phase: " + durationMillis
+                    + "ms at " + requestsPerMinute + " requests/min");
+        }
+
+        duration += durationMillis;
+        phaseEnds.add(duration);
+        phaseRates.add(requestsPerMinute);
+    }
+
+    /** Get the total length of the profile, i.e. the time after which no
+     * further requests arrive.
+     *
+     * @return the sum of the durations of all phases (millisec)
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /** Computes the time of the arrival following the one at time now.
+     * Phases with no load are skipped; the inter-arrival time is drawn
+     * again whenever it crosses into a new phase, which is correct for
+     * exponentially distributed arrivals.
+     *
+     * @param now the time of the previous arrival (or 0 at the start)
+     * @param random the source of randomness of the simulation
+     * @return the time of the next arrival, or -1 if the profile is over
+     */
+    long nextArrival(long now, Random random) {
+        for (int i = 0; i < phaseEnds.size(); i++) {
+            long end = phaseEnds.get(i);
+            if (now >= end) {
+                continue;
+            }
+
+            double rate = phaseRates.get(i);
+            if (rate > 0) {
+                double meanGap = 60000.0 / rate;
+                long gap = (long) Math.ceil(-meanGap * Math.log(1.0 - random.nextDouble()));
+                if (now + gap < end) {
+                    return now + gap;
+                }
+            }
+            now = end;
+        }
+
+        return -1;
+    }
+}
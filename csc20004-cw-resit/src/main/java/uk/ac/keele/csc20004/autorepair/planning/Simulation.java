@@ -0,0 +1,341 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.Part;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+/** A discrete-event simulation of the autorepair for a given Configuration.
+ *
+ * Rather than running Mechanic threads that sleep for the service time of each
+ * Vehicle, the simulation keeps a virtual clock that jumps straight from one
+ * event (arrival of a request, end of a service, refill of the shelves) to the
+ * next. A whole day of work is therefore simulated in a few milliseconds, and
+ * the outcome only depends on the seeds, not on the scheduling of threads.
+ *
+ * The simulated autorepair behaves as follows:
+ * <ul>
+ * <li>requests are rejected when Autorepair.MAX_REQUESTS are already waiting;</li>
+ * <li>idle mechanics take the waiting requests in FIFO order;</li>
+ * <li>for each vehicle in the request, the mechanic takes the parts from the
+ * shelves (waiting for a refill if any of them is missing) and then works
+ * on the vehicle for its service time.</li>
+ * </ul>
+ */
+public class Simulation implements Callable<SimulationResult> {
+    private static final int ARRIVAL = 0;
+    private static final int SERVICE_DONE = 1;
+    private static final int REFILL = 2;
+
+    private final Configuration configuration;
+    private final LoadProfile profile;
+    private final CostModel costModel;
+    private final long[] seeds;
+
+    // state of the current run
+    private final PriorityQueue<Event> events;
+    private final ArrayDeque<Waiting> waiting;
+    private final ArrayDeque<SimMechanic> idle;
+    private final ArrayDeque<SimMechanic> blocked;
+    private final int[] shelves;
+    private long eventCount;
+    private Random random;
+
+    // statistics, accumulated over all runs
+    private long[] waits;
+    private int numWaits;
+    private int served;
+    private int rejected;
+    private int unfinished;
+
+    /** Creates a simulation, which is carried out when call() is invoked.
+     *
+     * @param configuration the configuration to simulate
+     * @param profile the load of the autorepair
+     * @param costModel used to compute the cost of the configuration
+     * @param seeds the seeds of the random generator; one run is carried out
+     * for each seed, and the statistics are computed over all runs
+     */
+    public Simulation(Configuration configuration, LoadProfile profile,
+            CostModel costModel, long[] seeds) {
+        if (seeds.length == 0) {
+            throw new IllegalArgumentException("At least one seed is needed");
+        }
+
+        this.configuration = configuration;
+        this.profile = profile;
+        this.costModel = costModel;
+        this.seeds = seeds.clone();
+
+        events = new PriorityQueue<>();
+        waiting = new ArrayDeque<>();
+        idle = new ArrayDeque<>();
+        blocked = new ArrayDeque<>();
+        shelves = new int[Configuration.SHELVES];
+    }
+
+    /** Runs the simulation once per seed.
+     *
+     * @return the statistics over all runs
+     */
+    @Override
+    public SimulationResult call() {
+        waits = new long[1024];
+        numWaits = 0;
+        served = 0;
+        rejected = 0;
+        unfinished = 0;
+
+        for (long seed : seeds) {
+            run(seed);
+        }
+
+        long p95 = 0;
+        long max = 0;
+        if (numWaits > 0) {
+            Arrays.sort(waits, 0, numWaits);
+            p95 = waits[(int) Math.ceil(0.95 * numWaits) - 1];
+            max = waits[numWaits - 1];
+        }
+
+        double cost = costModel.cost(configuration, profile.getDuration());
+
+        return new SimulationResult(configuration, cost, p95, max,
+                served, rejected, unfinished);
+    }
+
+    /** Carries out a single run of the simulation.
+     * Requests keep arriving for the duration of the profile; after that,
+     * the mechanics are given as much time again to clear the waiting line.
+     *
+     * @param seed the seed for the random generator
+     */
+    private void run(long seed) {
+        random = new Random(seed);
+        events.clear();
+        waiting.clear();
+        idle.clear();
+        blocked.clear();
+        eventCount = 0;
+
+        for (int i = 0; i < Configuration.SHELVES; i++) {
+            shelves[i] = configuration.getStock(i);
+        }
+        for (int i = 0; i < configuration.getMechanics(); i++) {
+            idle.add(new SimMechanic());
+        }
+
+        long firstArrival = profile.nextArrival(0, random);
+        if (firstArrival >= 0) {
+            schedule(firstArrival, ARRIVAL, null);
+        }
+        schedule(configuration.getRefillInterval(), REFILL, null);
+
+        long deadline = 2 * profile.getDuration();
+        long now = 0;
+        while (!events.isEmpty() && events.peek().time <= deadline) {
+            Event e = events.poll();
+            now = e.time;
+
+            switch (e.kind) {
+                case ARRIVAL:
+                    arrive(now);
+                    break;
+                case SERVICE_DONE:
+                    advance(e.mechanic, now);
+                    break;
+                default:
+                    refill(now);
+                    break;
+            }
+            dispatch(now);
+
+            if (now >= profile.getDuration() && waiting.isEmpty()
+                    && idle.size() == configuration.getMechanics()) {
+                return;
+            }
+        }
+
+        // whatever is left counts as unfinished; requests never picked up
+        // count with the time they have waited so far
+        for (Waiting w : waiting) {
+            recordWait(now - w.arrival);
+        }
+        unfinished += waiting.size() + configuration.getMechanics() - idle.size();
+    }
+
+    /** A new request arrives: it is either accepted or rejected, and the
+     * following arrival is scheduled. The request is drawn in either case,
+     * so that the random stream, and hence the sequence of requests and
+     * arrival times, is the same for every configuration run with a seed.
+     *
+     * @param now the current (virtual) time
+     */
+    private void arrive(long now) {
+        ServiceRequest r = ServiceRequest.createRandomRequest(random);
+        if (waiting.size() >= Autorepair.MAX_REQUESTS) {
+            rejected++;
+        } else {
+            waiting.add(new Waiting(r, now));
+        }
+
+        long next = profile.nextArrival(now, random);
+        if (next >= 0) {
+            schedule(next, ARRIVAL, null);
+        }
+    }
+
+    /** One part is put back on each shelf that is not full, then the mechanics
+     * waiting for parts try again, in the order they started waiting.
+     *
+     * @param now the current (virtual) time
+     */
+    private void refill(long now) {
+        for (int i = 0; i < Configuration.SHELVES; i++) {
+            if (shelves[i] < configuration.getStock(i)) {
+                shelves[i]++;
+            }
+        }
+
+        Iterator<SimMechanic> it = blocked.iterator();
+        while (it.hasNext()) {
+            SimMechanic m = it.next();
+            if (startVehicle(m, now)) {
+                it.remove();
+            }
+        }
+
+        schedule(now + configuration.getRefillInterval(), REFILL, null);
+    }
+
+    /** Idle mechanics pick up the waiting requests.
+     *
+     * @param now the current (virtual) time
+     */
+    private void dispatch(long now) {
+        while (!idle.isEmpty() && !waiting.isEmpty()) {
+            SimMechanic m = idle.poll();
+            Waiting w = waiting.poll();
+            recordWait(now - w.arrival);
+
+            m.vehicles = w.request.iterator();
+            advance(m, now);
+        }
+    }
+
+    /** Moves a mechanic on to the next vehicle of the current request, or back
+     * to the idle ones if the request is complete.
+     *
+     * @param m the mechanic
+     * @param now the current (virtual) time
+     */
+    private void advance(SimMechanic m, long now) {
+        if (!m.vehicles.hasNext()) {
+            m.vehicles = null;
+            served++;
+            idle.add(m);
+            return;
+        }
+
+        m.vehicle = m.vehicles.next();
+        if (!startVehicle(m, now)) {
+            blocked.add(m);
+        }
+    }
+
+    /** Tries to take all the parts for the vehicle the mechanic is working on
+     * and, if successful, schedules the end of the service.
+     *
+     * @param m the mechanic
+     * @param now the current (virtual) time
+     * @return true if the service could start, false if any part is missing
+     */
+    private boolean startVehicle(SimMechanic m, long now) {
+        Part[] parts = m.vehicle.getParts();
+        for (Part p : parts) {
+            if (shelves[shelfOf(p)] == 0) {
+                return false;
+            }
+        }
+        for (Part p : parts) {
+            shelves[shelfOf(p)]--;
+        }
+
+        schedule(now + m.vehicle.getServiceTime(), SERVICE_DONE, m);
+        return true;
+    }
+
+    private void schedule(long time, int kind, SimMechanic m) {
+        events.add(new Event(time, eventCount++, kind, m));
+    }
+
+    private void recordWait(long wait) {
+        if (numWaits == waits.length) {
+            waits = Arrays.copyOf(waits, 2 * waits.length);
+        }
+        waits[numWaits++] = wait;
+    }
+
+    private static int shelfOf(Part p) {
+        if (p.isOilFilter()) {
+            return Configuration.OIL_FILTER;
+        } else if (p.isBattery()) {
+            return Configuration.BATTERY;
+        } else if (p.isBrakes()) {
+            return Configuration.BRAKES;
+        } else {
+            return Configuration.TYRES;
+        }
+    }
+
+    /** An event in the simulation; events happening at the same time are
+     * processed in the order they were scheduled.
+     */
+    private static class Event implements Comparable<Event> {
+        final long time;
+        final long seq;
+        final int kind;
+        final SimMechanic mechanic;
+
+        Event(long time, long seq, int kind, SimMechanic mechanic) {
+            this.time = time;
+            this.seq = seq;
+            this.kind = kind;
+            this.mechanic = mechanic;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            if (time != o.time) {
+                return Long.compare(time, o.time);
+            }
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+    /** A request in the waiting line, with its arrival time. */
+    private static class Waiting {
+        final ServiceRequest request;
+        final long arrival;
+
+        Waiting(ServiceRequest request, long arrival) {
+            this.request = request;
+            this.arrival = arrival;
+        }
+    }
+
+    /** The state of a simulated mechanic: the vehicles of the current request
+     * still to be serviced, and the one being worked on.
+     */
+    private static class SimMechanic {
+        Iterator<Vehicle> vehicles;
+        Vehicle vehicle;
+    }
+}
@@ -0,0 +1,118 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+/** The outcome of the simulations of one Configuration.
+ *
+ * Objects of this class are immutable.
+ */
+public class SimulationResult {
+    private final Configuration configuration;
+    private final double cost;
+    private final long p95Wait;
+    private final long maxWait;
+    private final int served;
+    private final int rejected;
+    private final int unfinished;
+
+    /** Creates a result; this is called by Simulation.
+     *
+     * @param configuration the simulated configuration
+     * @param cost the cost of the configuration, according to the CostModel used
+     * @param p95Wait the 95th percentile of the time requests spent in the
+     * waiting line before a mechanic picked them up (millisec)
+     * @param maxWait the longest time spent in the waiting line (millisec)
+     * @param served the number of requests completed
+     * @param rejected the number of requests rejected because MAX_REQUESTS
+     * requests were already waiting
+     * @param unfinished the number of accepted requests still in progress
+     * when the simulation was stopped
+     */
+    SimulationResult(Configuration configuration, double cost, long p95Wait,
+            long maxWait, int served, int rejected, int unfinished) {
+        this.configuration = configuration;
+        this.cost = cost;
+        this.p95Wait = p95Wait;
+        this.maxWait = maxWait;
+        this.served = served;
+        this.rejected = rejected;
+        this.unfinished = unfinished;
+    }
+
+    /** Get the simulated configuration.
+     *
+     * @return the configuration these results refer to
+     */
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    /** Get the cost of the configuration.
+     *
+     * @return the cost computed by the CostModel
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /** Get the 95th percentile of the waiting time.
+     *
+     * @return the p95 of the time spent in the waiting line (millisec)
+     */
+    public long getP95Wait() {
+        return p95Wait;
+    }
+
+    /** Get the longest waiting time.
+     *
+     * @return the maximum time spent in the waiting line (millisec)
+     */
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /** Get the number of requests completed.
+     *
+     * @return the number of requests served, over all runs
+     */
+    public int getServed() {
+        return served;
+    }
+
+    /** Get the number of rejected requests.
+     *
+     * @return the number of requests rejected, over all runs
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /** Get the number of requests that were accepted but not completed.
+     *
+     * @return the number of requests left over when the runs were stopped
+     */
+    public int getUnfinished() {
+        return unfinished;
+    }
+
+    /** Checks whether the configuration meets the service level.
+     *
+     * @param targetP95Wait the maximum acceptable p95 waiting time (millisec)
+     * @return true if no request was rejected or left unfinished and the
+     * p95 waiting time is within the target
+     */
+    public boolean meets(long targetP95Wait) {
+        return rejected == 0 && unfinished == 0 && p95Wait <= targetP95Wait;
+    }
+
+    /** Overridden toString() method to provide a concise textual visualisation
+     * of the result
+     *
+     * @return a string with the configuration, its cost and the measured waits
+     */
+    @Override
+    public String toString() {
+        return configuration + ": cost " + cost + ", p95 wait " + p95Wait
+                + "ms, max wait " + maxWait + "ms, served " + served
+                + ", rejected " + rejected + ", unfinished " + unfinished;
+    }
+}
@@ -0,0 +1,342 @@
+
+package uk.ac.keele.csc20004.autorepair.pool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.Mechanic;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+
+/** A resizable set of threads, each one running a Mechanic that repeatedly
+ * fetches the next request from the autorepair and processes it.
+ *
+ * The number of active mechanics can be changed at any time, within the
+ * bounds given at construction, either directly or by a PoolController.
+ * When the pool shrinks, the retired mechanics finish the request they are
+ * working on (if any) before their thread terminates, so no request is lost.
+ *
+ * A RuntimeException thrown while fetching or processing a request is passed
+ * to the uncaught exception handler of the thread, and the mechanic goes on
+ * with the next request. A thread that terminates anyway (e.g. because of an
+ * Error) is removed from the pool, with a resize event.
+ *
+ * Listeners are notified of every change in size, shutdown included, one
+ * change at a time and in the order the changes are made.
+ */
+public class MechanicPool {
+    /** weight of the latest sample in the moving average of the service time */
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    /** how long a mechanic waits before asking again, when getNextRequest()
+     * returns null */
+    private static final long IDLE_WAIT = 50;
+
+    private final Autorepair autorepair;
+    private final Supplier<? extends Mechanic> mechanics;
+    private final int minSize;
+    private final int maxSize;
+
+    private final List<Worker> workers;
+    private final List<PoolResizeListener> listeners;
+    // held while changing the size and notifying the listeners, so that
+    // events are delivered in order without blocking the other methods
+    private final Object resizeLock;
+    private double averageServiceTime;
+    private long completed;
+    private int nextId;
+    private boolean shutdown;
+
+    /** Creates a pool; no mechanic starts working until start() is called.
+     *
+     * @param autorepair the autorepair the mechanics take requests from
+     * @param mechanics used to create a new Mechanic whenever the pool grows
+     * @param minSize the minimum number of active mechanics (at least 1)
+     * @param maxSize the maximum number of active mechanics
+     */
+    public MechanicPool(Autorepair autorepair, Supplier<? extends Mechanic> mechanics,
+            int minSize, int maxSize) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid bounds: " + minSize + ", " + maxSize);
+        }
+
+        this.autorepair = autorepair;
+        this.mechanics = mechanics;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+
+        workers = new ArrayList<>(maxSize);
+        listeners = new CopyOnWriteArrayList<>();
+        resizeLock = new Object();
+        averageServiceTime = 0;
+        completed = 0;
+        nextId = 0;
+        shutdown = false;
+    }
+
+    /** Starts the minimum number of mechanics.
+     */
+    public void start() {
+        resize(minSize);
+    }
+
+    /** Changes the number of active mechanics. The requested size is clamped
+     * to the bounds of the pool; listeners are notified only if the size
+     * actually changes.
+     *
+     * @param size the requested number of active mechanics
+     * @return the number of active mechanics after the change
+     */
+    public int resize(int size) {
+        synchronized (resizeLock) {
+            int oldSize;
+            int newSize;
+
+            synchronized (this) {
+                if (shutdown) {
+                    throw new IllegalStateException("The pool has been shut down");
+                }
+
+                newSize = Math.max(minSize, Math.min(maxSize, size));
+                oldSize = workers.size();
+
+                while (workers.size() < newSize) {
+                    Worker w = new Worker(mechanics.get(), nextId++);
+                    workers.add(w);
+                    w.start();
+                }
+                while (workers.size() > newSize) {
+                    // retire the most recent ones first
+                    workers.remove(workers.size() - 1).retire();
+                }
+            }
+
+            fireResized(oldSize, newSize);
+            return newSize;
+        }
+    }
+
+    /** Retires all mechanics. Those waiting for a request are interrupted;
+     * those working on a request finish it first. Calling this more than
+     * once has no further effect.
+     */
+    public void shutdown() {
+        synchronized (resizeLock) {
+            int oldSize;
+
+            synchronized (this) {
+                if (shutdown) {
+                    return;
+                }
+                shutdown = true;
+
+                oldSize = workers.size();
+                for (Worker w : workers) {
+                    w.retire();
+                    w.interruptIfIdle();
+                }
+                workers.clear();
+            }
+
+            fireResized(oldSize, 0);
+        }
+    }
+
+    /** Checks whether shutdown() has been called.
+     *
+     * @return true if the pool has been shut down
+     */
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    /** Get the number of active mechanics.
+     *
+     * @return the number of mechanics currently taking requests
+     */
+    public synchronized int getSize() {
+        return workers.size();
+    }
+
+    /** Get the minimum size of the pool.
+     *
+     * @return the minimum number of active mechanics
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /** Get the maximum size of the pool.
+     *
+     * @return the maximum number of active mechanics
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Get the observed service latency, as an exponential moving average
+     * of the time taken by Mechanic.processRequest().
+     *
+     * @return the average service time (millisec), or 0 if no request has
+     * been processed yet
+     */
+    public synchronized double getAverageServiceTime() {
+        return averageServiceTime;
+    }
+
+    /** Get the number of requests processed so far by the mechanics of the pool.
+     *
+     * @return the number of calls to Mechanic.processRequest() completed
+     */
+    public synchronized long getCompletedRequests() {
+        return completed;
+    }
+
+    /** Registers a listener to be notified of changes in the size of the pool.
+     *
+     * @param l the listener
+     */
+    public void addPoolResizeListener(PoolResizeListener l) {
+        listeners.add(l);
+    }
+
+    /** Removes a listener previously registered.
+     *
+     * @param l the listener
+     */
+    public void removePoolResizeListener(PoolResizeListener l) {
+        listeners.remove(l);
+    }
+
+    /** Removes a worker whose thread has terminated without being retired,
+     * and notifies the listeners. The pool may then be below its minimum
+     * size until the next call to resize().
+     */
+    private void removeWorker(Worker w) {
+        synchronized (resizeLock) {
+            int oldSize;
+
+            synchronized (this) {
+                if (!workers.remove(w)) {
+                    return;
+                }
+                oldSize = workers.size() + 1;
+            }
+
+            fireResized(oldSize, oldSize - 1);
+        }
+    }
+
+    /** Notifies the listeners of a change in size, if the size did change.
+     * This must be called while holding resizeLock.
+     */
+    private void fireResized(int oldSize, int newSize) {
+        if (newSize == oldSize) {
+            return;
+        }
+
+        PoolResizeEvent e = new PoolResizeEvent(this, oldSize, newSize,
+                autorepair.getNumOfWaitingRequests(), getAverageServiceTime());
+        for (PoolResizeListener l : listeners) {
+            l.poolResized(e);
+        }
+    }
+
+    private synchronized void recordServiceTime(long millis) {
+        completed++;
+        if (averageServiceTime == 0) {
+            averageServiceTime = millis;
+        } else {
+            averageServiceTime += LATENCY_WEIGHT * (millis - averageServiceTime);
+        }
+    }
+
+    /** The thread running one of the mechanics of the pool. */
+    private class Worker extends Thread {
+        private final Mechanic mechanic;
+        private volatile boolean retired;
+        private boolean busy;
+
+        Worker(Mechanic mechanic, int id) {
+            super("mechanic-" + id);
+            this.mechanic = mechanic;
+            retired = false;
+            busy = false;
+        }
+
+        void retire() {
+            retired = true;
+        }
+
+        /** Interrupts the worker only if it is not processing a request, so
+         * that e.g. a sleep simulating the service time is not cut short.
+         */
+        synchronized void interruptIfIdle() {
+            if (!busy) {
+                interrupt();
+            }
+        }
+
+        private synchronized void setBusy(boolean b) {
+            busy = b;
+            if (b) {
+                // an interrupt meant to stop the wait for a request must not
+                // reach the mechanic, now that it has one to work on
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                work();
+            } finally {
+                if (!retired) {
+                    // terminated by an interrupt or an Error rather than by
+                    // the pool: make sure it is no longer counted
+                    removeWorker(this);
+                }
+            }
+        }
+
+        private void work() {
+            while (!retired) {
+                ServiceRequest r;
+                try {
+                    r = autorepair.getNextRequest();
+                } catch (RuntimeException e) {
+                    report(e);
+                    r = null;
+                }
+                if (r == null) {
+                    try {
+                        Thread.sleep(IDLE_WAIT);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    continue;
+                }
+
+                setBusy(true);
+                long start = System.currentTimeMillis();
+                try {
+                    mechanic.processRequest(r);
+                } catch (RuntimeException e) {
+                    // the request is lost, but the mechanic carries on
+                    report(e);
+                } finally {
+                    setBusy(false);
+                    recordServiceTime(System.currentTimeMillis() - start);
+                }
+            }
+        }
+
+        /** Passes an exception to the uncaught exception handler of the
+         * thread (by default, printing it) without terminating the thread.
+         */
+        private void report(RuntimeException e) {
+            getUncaughtExceptionHandler().uncaughtException(this, e);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+
+package uk.ac.keele.csc20004.autorepair.pool;
+
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+/** A feedback controller that adapts the size of a MechanicPool to the load
+ * of the autorepair.
+ *
+ * At regular intervals the controller estimates how long a new request would
+ * wait, as the number of waiting requests times the average service time,
+ * divided by the number of active mechanics. The pool is then resized with an
+ * AIMD policy:
+ * <ul>
+ * <li>if the expected wait is above the target, one mechanic is added
+ * (additive increase);</li>
+ * <li>if, even with half the mechanics, the expected wait would stay below
+ * half the target and the mechanics would be busy less than MAX_UTILISATION
+ * of the time, the pool is halved (multiplicative decrease), down to its
+ * minimum size.</li>
+ * </ul>
+ * To avoid thrashing, a decision is only taken after the same condition has
+ * been observed for PATIENCE consecutive samples, and no further change is
+ * made during the following COOLDOWN samples. The only exception is a waiting
+ * line close to Autorepair.MAX_REQUESTS, which makes the pool grow straight
+ * away, as further requests would otherwise be rejected.
+ */
+public class PoolController implements Runnable {
+    /** number of consecutive samples needed before resizing the pool */
+    public static final int PATIENCE = 3;
+
+    /** number of samples after a resize during which no change is made */
+    public static final int COOLDOWN = 2;
+
+    /** the pool is shrunk when the expected wait falls below this fraction
+     * of the target; the band between this and the target is the hysteresis */
+    public static final double SHRINK_THRESHOLD = 0.5;
+
+    /** the pool is not shrunk if the remaining mechanics would be busy for
+     * more than this fraction of the time, even if nobody is waiting */
+    public static final double MAX_UTILISATION = 0.75;
+
+    /** the factor applied to the size of the pool when shrinking it */
+    public static final double DECREASE_FACTOR = 0.5;
+
+    /** the length of the waiting line above which the pool grows immediately */
+    public static final int URGENT_WAITING = Autorepair.MAX_REQUESTS * 3 / 4;
+
+    private final MechanicPool pool;
+    private final Autorepair autorepair;
+    private final long targetWait;
+    private final long samplePeriod;
+
+    private volatile boolean running;
+    private int overloaded;
+    private int underloaded;
+    private int cooldown;
+    private long lastSample;
+    private long lastCompleted;
+
+    /** Creates a controller; it starts adapting the pool when run() is
+     * called, typically in a dedicated thread.
+     *
+     * @param pool the pool to resize
+     * @param autorepair the autorepair the pool takes requests from
+     * @param targetWait the expected waiting time the controller aims at (millisec)
+     * @param samplePeriod the time between two samples (millisec)
+     */
+    public PoolController(MechanicPool pool, Autorepair autorepair,
+            long targetWait, long samplePeriod) {
+        if (targetWait <= 0 || samplePeriod <= 0) {
+            throw new IllegalArgumentException("Target and period must be positive");
+        }
+
+        this.pool = pool;
+        this.autorepair = autorepair;
+        this.targetWait = targetWait;
+        this.samplePeriod = samplePeriod;
+        running = true;
+        lastSample = System.currentTimeMillis();
+        lastCompleted = pool.getCompletedRequests();
+    }
+
+    /** Samples the load and resizes the pool until stop() is called, the
+     * pool is shut down or the thread is interrupted.
+     */
+    @Override
+    public void run() {
+        while (running && !pool.isShutdown()) {
+            sample();
+            try {
+                Thread.sleep(samplePeriod);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /** Asks the controller to terminate after the current sample.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /** Takes one sample of the load and, if needed, resizes the pool.
+     */
+    void sample() {
+        int size = pool.getSize();
+        if (size == 0) {
+            // not started yet, or shut down: nothing to adapt
+            return;
+        }
+        int waiting = autorepair.getNumOfWaitingRequests();
+
+        double serviceTime = pool.getAverageServiceTime();
+        if (serviceTime == 0) {
+            // nothing processed yet: assume the longest service
+            serviceTime = Vehicle.SERVICE_TIME_PREMIUM1;
+        }
+        double expectedWait = waiting * serviceTime / size;
+
+        // how many mechanics were busy, on average, since the last sample
+        long now = System.currentTimeMillis();
+        long completed = pool.getCompletedRequests();
+        double busy = (completed - lastCompleted) * serviceTime / Math.max(1, now - lastSample);
+        lastSample = now;
+        lastCompleted = completed;
+
+        // the wait and utilisation expected if the pool were shrunk: checking
+        // these, rather than the current ones, keeps a small pool from
+        // bouncing up and down
+        int shrunkSize = Math.max(1, (int) Math.ceil(size * DECREASE_FACTOR));
+        double shrunkWait = waiting * serviceTime / shrunkSize;
+        double shrunkUtilisation = busy / shrunkSize;
+
+        if (expectedWait > targetWait) {
+            overloaded++;
+            underloaded = 0;
+        } else if (shrunkWait < targetWait * SHRINK_THRESHOLD
+                && shrunkUtilisation < MAX_UTILISATION) {
+            underloaded++;
+            overloaded = 0;
+        } else {
+            overloaded = 0;
+            underloaded = 0;
+        }
+
+        if (waiting >= URGENT_WAITING) {
+            resize(size, size + 1);
+        } else if (cooldown > 0) {
+            cooldown--;
+        } else if (overloaded >= PATIENCE) {
+            resize(size, size + 1);
+        } else if (underloaded >= PATIENCE) {
+            resize(size, shrunkSize);
+        }
+    }
+
+    /** Resizes the pool and, if its size did change, restarts the hysteresis.
+     *
+     * @param size the current size of the pool
+     * @param newSize the requested size
+     */
+    private void resize(int size, int newSize) {
+        int resized;
+        try {
+            resized = pool.resize(newSize);
+        } catch (IllegalStateException e) {
+            // the pool has been shut down since the sample was taken
+            running = false;
+            return;
+        }
+
+        if (resized != size) {
+            overloaded = 0;
+            underloaded = 0;
+            cooldown = COOLDOWN;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+
+package uk.ac.keele.csc20004.autorepair.pool;
+
+/** Describes a change in the number of active mechanics of a MechanicPool,
+ * together with the load observed when the change was made.
+ *
+ * Objects of this class are immutable.
+ */
+public class PoolResizeEvent {
+    private final MechanicPool source;
+    private final int oldSize;
+    private final int newSize;
+    private final int waitingRequests;
+    private final double averageServiceTime;
+    private final long timestamp;
+
+    /** Creates an event; this is called by MechanicPool.
+     *
+     * @param source the pool that was resized
+     * @param oldSize the number of active mechanics before the change
+     * @param newSize the number of active mechanics after the change
+     * @param waitingRequests the number of requests waiting when the change was made
+     * @param averageServiceTime the average time taken to process a request
+     * (millisec), or 0 if no request has been processed yet
+     */
+    PoolResizeEvent(MechanicPool source, int oldSize, int newSize,
+            int waitingRequests, double averageServiceTime) {
+        this.source = source;
+        this.oldSize = oldSize;
+        this.newSize = newSize;
+        this.waitingRequests = waitingRequests;
+        this.averageServiceTime = averageServiceTime;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /** Get the pool that was resized.
+     *
+     * @return the MechanicPool generating this event
+     */
+    public MechanicPool getSource() {
+        return source;
+    }
+
+    /** Get the size of the pool before the change.
+     *
+     * @return the number of active mechanics before the change
+     */
+    public int getOldSize() {
+        return oldSize;
+    }
+
+    /** Get the size of the pool after the change.
+     *
+     * @return the number of active mechanics after the change
+     */
+    public int getNewSize() {
+        return newSize;
+    }
+
+    /** Get the length of the waiting line when the change was made.
+     *
+     * @return the number of requests waiting
+     */
+    public int getWaitingRequests() {
+        return waitingRequests;
+    }
+
+    /** Get the service latency observed when the change was made.
+     *
+     * @return the average time taken to process a request (millisec)
+     */
+    public double getAverageServiceTime() {
+        return averageServiceTime;
+    }
+
+    /** Get the time of the change.
+     *
+     * @return the time the pool was resized, as System.currentTimeMillis()
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** Overridden toString() method to provide a concise textual visualisation
+     * of the event
+     *
+     * @return a string with the old and new size and the observed load
+     */
+    @Override
+    public String toString() {
+        return "pool resized " + oldSize + " -> " + newSize + " (waiting "
+                + waitingRequests + ", avg service " + Math.round(averageServiceTime) + "ms)";
+    }
+}
@@ -0,0 +1,15 @@
+
+package uk.ac.keele.csc20004.autorepair.pool;
+
+/** An interface for objects that want to be notified whenever a MechanicPool
+ * changes the number of active mechanics.
+ *
+ */
+public interface PoolResizeListener {
+
+    /** Called after the pool has been resized, by the thread that resized it.
+     *
+     * @param e the details of the change
+     */
+    public void poolResized(PoolResizeEvent e);
+}
@@ -0,0 +1,96 @@
+
+package uk.ac.keele.csc20004.autorepair.routing;
+
+import java.util.EnumSet;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+/** The kinds of work a mechanic may be able to do: one for each combination
+ * of type of vehicle and type of service.
+ */
+public enum Skill {
+    AUTO_QUICK(Vehicle.AUTO, Vehicle.QUICK_SERVICE),
+    AUTO_BASIC(Vehicle.AUTO, Vehicle.BASIC_SERVICE),
+    AUTO_PREMIUM1(Vehicle.AUTO, Vehicle.PREMIUM1_SERVICE),
+    AUTO_PREMIUM2(Vehicle.AUTO, Vehicle.PREMIUM2_SERVICE),
+    BIKE_QUICK(Vehicle.BIKE, Vehicle.QUICK_SERVICE),
+    BIKE_BASIC(Vehicle.BIKE, Vehicle.BASIC_SERVICE),
+    BIKE_PREMIUM1(Vehicle.BIKE, Vehicle.PREMIUM1_SERVICE),
+    BIKE_PREMIUM2(Vehicle.BIKE, Vehicle.PREMIUM2_SERVICE);
+
+    private final int vehicleType;
+    private final int serviceType;
+
+    private Skill(int vehicleType, int serviceType) {
+        this.vehicleType = vehicleType;
+        this.serviceType = serviceType;
+    }
+
+    /** Get the type of vehicle this skill applies to.
+     *
+     * @return either Vehicle.AUTO or Vehicle.BIKE
+     */
+    public int getVehicleType() {
+        return vehicleType;
+    }
+
+    /** Get the type of service this skill applies to.
+     *
+     * @return one of the *_SERVICE constants of Vehicle
+     */
+    public int getServiceType() {
+        return serviceType;
+    }
+
+    /** Finds the skill needed to service a vehicle.
+     *
+     * @param v the vehicle
+     * @return the Skill matching the type of vehicle and of service
+     */
+    public static Skill of(Vehicle v) {
+        return values()[v.getVehicleType() * Vehicle.SERVICE_TYPES + v.getServiceType()];
+    }
+
+    /** Finds all the skills needed to carry out a request.
+     *
+     * @param r the request
+     * @return the set of skills needed for the vehicles in the request
+     */
+    public static EnumSet<Skill> of(ServiceRequest r) {
+        EnumSet<Skill> skills = EnumSet.noneOf(Skill.class);
+        for (Vehicle v : r) {
+            skills.add(of(v));
+        }
+        return skills;
+    }
+
+    /** Helper method to build the set of all skills for a type of vehicle.
+     *
+     * @param vehicleType either Vehicle.AUTO or Vehicle.BIKE
+     * @return the skills for all types of service on that type of vehicle
+     */
+    public static EnumSet<Skill> forVehicle(int vehicleType) {
+        EnumSet<Skill> skills = EnumSet.noneOf(Skill.class);
+        for (Skill s : values()) {
+            if (s.vehicleType == vehicleType) {
+                skills.add(s);
+            }
+        }
+        return skills;
+    }
+
+    /** Helper method to build the set of all skills for a type of service.
+     *
+     * @param serviceType one of the *_SERVICE constants of Vehicle
+     * @return the skills for that type of service on all types of vehicle
+     */
+    public static EnumSet<Skill> forService(int serviceType) {
+        EnumSet<Skill> skills = EnumSet.noneOf(Skill.class);
+        for (Skill s : values()) {
+            if (s.serviceType == serviceType) {
+                skills.add(s);
+            }
+        }
+        return skills;
+    }
+}
@@ -0,0 +1,245 @@
+
+package uk.ac.keele.csc20004.autorepair.routing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+
+/** A waiting line for service requests that routes each request to the
+ * mechanics able to carry it out.
+ *
+ * Instead of a single FIFO queue, the router keeps one queue per Skill, so
+ * that e.g. a quick service on a bike is not stuck behind a premium service
+ * on an auto that only some mechanics can do. Requests whose vehicles need
+ * different skills are kept in a separate "general" queue.
+ *
+ * A mechanic asking for work gets the oldest request it is able to carry
+ * out, looking at the heads of the queues of its own skills and at the
+ * general requests it has all the skills for. Comparing their age keeps the
+ * general requests from being starved under steady load.
+ *
+ * Mechanics must be registered with addMechanic(): a request is rejected if
+ * no registered mechanic has all the skills it needs, rather than being left
+ * in a queue nobody serves. For the same reason, removeMechanic() hands back
+ * the requests only the removed mechanic could carry out.
+ *
+ * The router is a standalone component: it is not an Autorepair, and
+ * MechanicPool, which pulls requests through Autorepair.getNextRequest(),
+ * does not use it. The threads running SkilledMechanics are expected to
+ * call getNextRequest(m) and then m.processRequest() themselves.
+ */
+public class SkillRouter {
+    private final EnumMap<Skill, ArrayDeque<Entry>> queues;
+    private final ArrayDeque<Entry> general;
+    private final List<SkilledMechanic> mechanics;
+    private long nextSeq;
+    private int waiting;
+
+    /** Creates an empty router.
+     */
+    public SkillRouter() {
+        queues = new EnumMap<>(Skill.class);
+        for (Skill s : Skill.values()) {
+            queues.put(s, new ArrayDeque<Entry>());
+        }
+        general = new ArrayDeque<>();
+        mechanics = new ArrayList<>();
+        nextSeq = 0;
+        waiting = 0;
+    }
+
+    /** Registers a mechanic that will take work from this router. Only the
+     * skills of registered mechanics are considered when accepting requests.
+     *
+     * @param m the mechanic
+     */
+    public synchronized void addMechanic(SkilledMechanic m) {
+        mechanics.add(m);
+    }
+
+    /** Unregisters a mechanic. The waiting requests that no remaining
+     * mechanic can carry out are taken out of the queues and handed back to
+     * the caller, e.g. to be rejected or placed elsewhere, so that they do
+     * not take up room in the waiting line forever.
+     *
+     * @param m the mechanic
+     * @return the requests that can no longer be served, in arrival order;
+     * an empty list if there are none
+     */
+    public synchronized List<ServiceRequest> removeMechanic(SkilledMechanic m) {
+        List<ServiceRequest> orphans = new ArrayList<>();
+        if (!mechanics.remove(m)) {
+            return orphans;
+        }
+
+        List<Entry> removed = new ArrayList<>();
+        for (Skill s : m.getSkills()) {
+            ArrayDeque<Entry> q = queues.get(s);
+            if (!q.isEmpty() && !isCovered(EnumSet.of(s))) {
+                removed.addAll(q);
+                q.clear();
+            }
+        }
+        Iterator<Entry> it = general.iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (!isCovered(e.skills)) {
+                removed.add(e);
+                it.remove();
+            }
+        }
+
+        removed.sort((a, b) -> Long.compare(a.seq, b.seq));
+        for (Entry e : removed) {
+            orphans.add(e.request);
+        }
+        waiting -= removed.size();
+        return orphans;
+    }
+
+    /** Checks whether any registered mechanic can carry out a request.
+     *
+     * @param r the request
+     * @return true if at least one registered mechanic has all the skills
+     * needed by r
+     */
+    public synchronized boolean canBeServed(ServiceRequest r) {
+        return isCovered(Skill.of(r));
+    }
+
+    /** Accept a request and store it in the queue for the skill it needs.
+     * As for any Autorepair, no more than Autorepair.MAX_REQUESTS may be
+     * waiting at the same time; requests that no registered mechanic can
+     * carry out are rejected too.
+     *
+     * @param r the ServiceRequest to be accepted
+     * @return true if the request was accepted, false if it was rejected
+     */
+    public synchronized boolean placeRequest(ServiceRequest r) {
+        if (waiting >= Autorepair.MAX_REQUESTS) {
+            return false;
+        }
+
+        EnumSet<Skill> skills = Skill.of(r);
+        if (!isCovered(skills)) {
+            return false;
+        }
+
+        Entry e = new Entry(r, skills, nextSeq++);
+        if (skills.size() == 1) {
+            queues.get(skills.iterator().next()).add(e);
+        } else {
+            general.add(e);
+        }
+        waiting++;
+
+        notifyAll();
+        return true;
+    }
+
+    /** Fetch the next request a mechanic is able to carry out, waiting until
+     * one is available.
+     *
+     * @param m the mechanic asking for work
+     * @return the request to be processed by m
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized ServiceRequest getNextRequest(SkilledMechanic m)
+            throws InterruptedException {
+        ServiceRequest r = pollRequest(m);
+        while (r == null) {
+            wait();
+            r = pollRequest(m);
+        }
+        return r;
+    }
+
+    /** Fetch the next request a mechanic is able to carry out, if any.
+     *
+     * @param m the mechanic asking for work
+     * @return the request to be processed by m, or null if there is no
+     * work m can do at the moment
+     */
+    public synchronized ServiceRequest pollRequest(SkilledMechanic m) {
+        Set<Skill> skills = m.getSkills();
+
+        // the oldest request among the ones for the skills of m
+        ArrayDeque<Entry> oldest = null;
+        for (Skill s : skills) {
+            ArrayDeque<Entry> q = queues.get(s);
+            if (!q.isEmpty() && (oldest == null || q.peek().seq < oldest.peek().seq)) {
+                oldest = q;
+            }
+        }
+
+        // the oldest general request m can do; the general queue is in
+        // arrival order, so the scan can stop as soon as it gets past the
+        // request found above
+        Iterator<Entry> it = general.iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (oldest != null && e.seq > oldest.peek().seq) {
+                break;
+            }
+            if (skills.containsAll(e.skills)) {
+                it.remove();
+                waiting--;
+                return e.request;
+            }
+        }
+
+        if (oldest != null) {
+            waiting--;
+            return oldest.poll().request;
+        }
+        return null;
+    }
+
+    /** Get the number of service requests still to be processed.
+     *
+     * @return the number of requests waiting in all queues
+     */
+    public synchronized int getNumOfWaitingRequests() {
+        return waiting;
+    }
+
+    /** Get the number of service requests waiting for a specific skill.
+     * Requests in the general queue are not counted.
+     *
+     * @param s the skill
+     * @return the number of requests waiting in the queue for s
+     */
+    public synchronized int getNumOfWaitingRequests(Skill s) {
+        return queues.get(s).size();
+    }
+
+    private boolean isCovered(EnumSet<Skill> skills) {
+        for (SkilledMechanic m : mechanics) {
+            if (m.getSkills().containsAll(skills)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** A request in one of the queues, with the skills it needs and its
+     * position in the overall arrival order.
+     */
+    private static class Entry {
+        final ServiceRequest request;
+        final EnumSet<Skill> skills;
+        final long seq;
+
+        Entry(ServiceRequest request, EnumSet<Skill> skills, long seq) {
+            this.request = request;
+            this.skills = skills;
+            this.seq = seq;
+        }
+    }
+}
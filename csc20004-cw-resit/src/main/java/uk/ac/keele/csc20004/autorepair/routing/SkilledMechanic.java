@@ -0,0 +1,18 @@
+
+package uk.ac.keele.csc20004.autorepair.routing;
+
+import java.util.Set;
+import uk.ac.keele.csc20004.autorepair.Mechanic;
+
+/** A Mechanic that is only able to do some kinds of work.
+ *
+ */
+public interface SkilledMechanic extends Mechanic {
+
+    /** Declares the kinds of work this mechanic can do. The SkillRouter only
+     * hands over requests whose vehicles all need one of these skills.
+     *
+     * @return the set of skills of this mechanic
+     */
+    public Set<Skill> getSkills();
+}
@@ -0,0 +1,309 @@
+
+package uk.ac.keele.csc20004.autorepair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import uk.ac.keele.csc20004.autorepair.RequestQueue.Dispatch;
+import uk.ac.keele.csc20004.autorepair.RequestQueue.Overdue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for RequestQueue, driven by a fake clock so that deadlines can be
+ * checked without waiting for them.
+ */
+public class RequestQueueTest {
+    private static final long START = 1000000;
+
+    private long now = START;
+
+    private RequestQueue queue(int capacity, Dispatch dispatch, Overdue overdue) {
+        return new RequestQueue(capacity, dispatch, overdue, () -> now);
+    }
+
+    private static ServiceRequest request() {
+        return new ServiceRequest(Vehicle.createQuickService(Vehicle.AUTO));
+    }
+
+    private static ServiceRequest request(long deadline) {
+        return new ServiceRequest(Vehicle.createQuickService(Vehicle.AUTO), deadline);
+    }
+
+    // ---- dispatch order ----
+
+    @Test
+    public void fifoIgnoresDeadlines() {
+        RequestQueue q = queue(10, Dispatch.FIFO, Overdue.ESCALATE);
+        ServiceRequest a = request(START + 3000);
+        ServiceRequest b = request();
+        ServiceRequest c = request(START + 1000);
+        q.offer(a);
+        q.offer(b);
+        q.offer(c);
+
+        assertSame(a, q.poll());
+        assertSame(b, q.poll());
+        assertSame(c, q.poll());
+        assertNull(q.poll());
+    }
+
+    @Test
+    public void edfOrdersByDeadlineWithNoDeadlineLast() {
+        RequestQueue q = queue(10, Dispatch.EDF, Overdue.ESCALATE);
+        ServiceRequest none1 = request();
+        ServiceRequest late = request(START + 3000);
+        ServiceRequest none2 = request();
+        ServiceRequest early = request(START + 1000);
+        ServiceRequest middle = request(START + 2000);
+        q.offerAll(Arrays.asList(none1, late, none2, early, middle));
+
+        List<ServiceRequest> out = new ArrayList<>();
+        assertEquals(5, q.drainTo(10, out));
+        assertEquals(Arrays.asList(early, middle, late, none1, none2), out);
+    }
+
+    @Test
+    public void edfKeepsArrivalOrderForEqualDeadlines() {
+        RequestQueue q = queue(10, Dispatch.EDF, Overdue.ESCALATE);
+        ServiceRequest a = request(START + 1000);
+        ServiceRequest b = request(START + 1000);
+        ServiceRequest c = request(START + 1000);
+        q.offerAll(Arrays.asList(a, b, c));
+
+        assertSame(a, q.poll());
+        assertSame(b, q.poll());
+        assertSame(c, q.poll());
+    }
+
+    // ---- overdue requests ----
+
+    @Test
+    public void expireUnderFifo() {
+        checkExpire(Dispatch.FIFO);
+    }
+
+    @Test
+    public void expireUnderEdf() {
+        checkExpire(Dispatch.EDF);
+    }
+
+    private void checkExpire(Dispatch dispatch) {
+        RequestQueue q = queue(10, dispatch, Overdue.EXPIRE);
+        List<ServiceRequest> expired = new ArrayList<>();
+        q.addDeadlineListener((r, e) -> {
+            assertTrue(e);
+            expired.add(r);
+        });
+
+        ServiceRequest keep = request();
+        ServiceRequest soon = request(START + 500);
+        ServiceRequest later = request(START + 5000);
+        q.offerAll(Arrays.asList(keep, soon, later));
+
+        now = START + 499;
+        q.expireOverdue();
+        assertEquals(3, q.size());
+
+        now = START + 600;
+        assertEquals(2, q.size());
+        assertEquals(Arrays.asList(soon), expired);
+        assertEquals(1, q.getDeadlineStats().getMissed(Vehicle.QUICK_SERVICE));
+        assertEquals(1, q.getDeadlineStats().getTotal(Vehicle.QUICK_SERVICE));
+
+        List<ServiceRequest> out = new ArrayList<>();
+        q.drainTo(10, out);
+        if (dispatch == Dispatch.EDF) {
+            assertEquals(Arrays.asList(later, keep), out);
+        } else {
+            assertEquals(Arrays.asList(keep, later), out);
+        }
+    }
+
+    @Test
+    public void escalateUnderFifo() {
+        checkEscalate(Dispatch.FIFO);
+    }
+
+    @Test
+    public void escalateUnderEdf() {
+        checkEscalate(Dispatch.EDF);
+    }
+
+    private void checkEscalate(Dispatch dispatch) {
+        RequestQueue q = queue(10, dispatch, Overdue.ESCALATE);
+        List<ServiceRequest> escalated = new ArrayList<>();
+        q.addDeadlineListener((r, e) -> {
+            assertFalse(e);
+            escalated.add(r);
+        });
+
+        // under EDF, a request without a deadline is never escalated and
+        // stays behind the ones that have one
+        ServiceRequest first = request();
+        ServiceRequest second = request(START + 5000);
+        ServiceRequest third = request(START + 800);
+        ServiceRequest fourth = request(START + 400);
+        q.offerAll(Arrays.asList(first, second, third, fourth));
+
+        now = START + 900;
+        assertEquals(4, q.size());
+        // both fall due in the same sweep, in no particular order
+        assertEquals(2, escalated.size());
+        assertTrue(escalated.contains(third) && escalated.contains(fourth));
+
+        List<ServiceRequest> out = new ArrayList<>();
+        q.drainTo(10, out);
+        if (dispatch == Dispatch.EDF) {
+            assertEquals(Arrays.asList(fourth, third, second, first), out);
+        } else {
+            assertEquals(Arrays.asList(fourth, third, first, second), out);
+        }
+        assertEquals(0, q.getDeadlineStats().getMissed(Vehicle.QUICK_SERVICE));
+    }
+
+    @Test
+    public void deadlineAlreadyPassedIsOverdueAtNextTick() {
+        RequestQueue q = queue(10, Dispatch.FIFO, Overdue.EXPIRE);
+        q.offer(request(START - 1000));
+        assertEquals(1, q.size());
+
+        now = START + RequestQueue.TICK_MILLIS;
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    public void deadlineBeyondWheelSizeSurvivesEarlierLaps() {
+        RequestQueue q = queue(10, Dispatch.FIFO, Overdue.EXPIRE);
+        long laps = 3;
+        long deadline = START + (laps * RequestQueue.WHEEL_SIZE + 7) * RequestQueue.TICK_MILLIS;
+        ServiceRequest r = request(deadline);
+        q.offer(r);
+
+        // go round the wheel in steps of half a lap, passing the slot of r
+        // several times before its deadline
+        long step = RequestQueue.WHEEL_SIZE / 2 * RequestQueue.TICK_MILLIS;
+        while (now + step < deadline) {
+            now += step;
+            q.expireOverdue();
+            assertEquals(1, q.size());
+        }
+
+        now = deadline - 1;
+        assertEquals(1, q.size());
+        now = deadline;
+        assertEquals(0, q.size());
+    }
+
+    @Test
+    public void clockJumpLongerThanWheelExpiresEverythingDue() {
+        RequestQueue q = queue(10, Dispatch.FIFO, Overdue.EXPIRE);
+        long lap = RequestQueue.WHEEL_SIZE * RequestQueue.TICK_MILLIS;
+        ServiceRequest soon = request(START + 300);
+        ServiceRequest farAway = request(START + 2 * lap + 300);
+        ServiceRequest beyond = request(START + 4 * lap);
+        q.offerAll(Arrays.asList(soon, farAway, beyond));
+
+        now = START + 3 * lap;
+        assertEquals(1, q.size());
+        assertSame(beyond, q.poll());
+    }
+
+    // ---- capacity and batches ----
+
+    @Test
+    public void offerAllStopsAtCapacity() {
+        RequestQueue q = queue(3, Dispatch.FIFO, Overdue.ESCALATE);
+        List<ServiceRequest> rs = Arrays.asList(request(), request(), request(), request(), request());
+
+        assertEquals(3, q.offerAll(rs));
+        assertEquals(3, q.size());
+        assertFalse(q.offer(request()));
+        assertEquals(0, q.offerAll(rs));
+
+        List<ServiceRequest> out = new ArrayList<>();
+        q.drainTo(10, out);
+        assertEquals(rs.subList(0, 3), out);
+    }
+
+    @Test
+    public void offerAllAcceptsOnlyTheRoomLeft() {
+        RequestQueue q = queue(3, Dispatch.FIFO, Overdue.ESCALATE);
+        ServiceRequest a = request();
+        q.offer(a);
+        ServiceRequest b = request();
+        ServiceRequest c = request();
+
+        assertEquals(2, q.offerAll(Arrays.asList(b, c, request())));
+        assertEquals(3, q.size());
+
+        List<ServiceRequest> out = new ArrayList<>();
+        q.drainTo(10, out);
+        assertEquals(Arrays.asList(a, b, c), out);
+    }
+
+    @Test
+    public void drainToFromFullQueue() {
+        RequestQueue q = queue(4, Dispatch.FIFO, Overdue.ESCALATE);
+        List<ServiceRequest> rs = Arrays.asList(request(), request(), request(), request());
+        q.offerAll(rs);
+
+        List<ServiceRequest> out = new ArrayList<>();
+        assertEquals(0, q.drainTo(0, out));
+        assertEquals(4, q.size());
+
+        assertEquals(3, q.drainTo(3, out));
+        assertEquals(rs.subList(0, 3), out);
+        assertEquals(1, q.drainTo(10, out));
+        assertEquals(rs, out);
+        assertEquals(0, q.drainTo(10, out));
+
+        // the recycled nodes can be used again up to capacity
+        assertEquals(4, q.offerAll(rs));
+        assertFalse(q.offer(request()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void drainToRejectsNegativeMax() {
+        queue(3, Dispatch.FIFO, Overdue.ESCALATE).drainTo(-1, new ArrayList<ServiceRequest>());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void drainToRejectsNullCollection() {
+        queue(3, Dispatch.FIFO, Overdue.ESCALATE).drainTo(1, null);
+    }
+
+    // ---- null requests ----
+
+    @Test
+    public void offerRejectsNull() {
+        RequestQueue q = queue(3, Dispatch.EDF, Overdue.ESCALATE);
+        q.offer(request());
+        try {
+            q.offer(null);
+            fail("null request accepted");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertEquals(1, q.size());
+    }
+
+    @Test
+    public void offerAllWithNullAddsNothing() {
+        RequestQueue q = queue(3, Dispatch.EDF, Overdue.ESCALATE);
+        ServiceRequest a = request();
+        try {
+            q.offerAll(Arrays.asList(a, null, request()));
+            fail("null request accepted");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        assertEquals(0, q.size());
+        assertEquals(3, q.offerAll(Arrays.asList(request(), request(), request())));
+    }
+}
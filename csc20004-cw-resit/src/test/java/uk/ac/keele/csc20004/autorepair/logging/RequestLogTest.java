@@ -0,0 +1,109 @@
+
+package uk.ac.keele.csc20004.autorepair.logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests for RequestLog. */
+public class RequestLogTest {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private static ServiceRequest request() {
+        return new ServiceRequest(Vehicle.createQuickService(Vehicle.AUTO),
+                Vehicle.createBasicService(Vehicle.BIKE));
+    }
+
+    private String[] lines() {
+        String s = bytes.toString().trim();
+        return s.isEmpty() ? new String[0] : s.split("\\R");
+    }
+
+    @Test
+    public void printsEntriesInOrder() {
+        ServiceRequest r = request();
+        try (RequestLog log = new RequestLog(new PrintStream(bytes), 16)) {
+            assertTrue(log.log(RequestLog.PLACED, r));
+            assertTrue(log.log(RequestLog.STARTED, r));
+            assertTrue(log.log(RequestLog.COMPLETED, r));
+        }
+
+        String[] lines = lines();
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("placed"));
+        assertTrue(lines[1].contains("started"));
+        assertTrue(lines[2].contains("completed"));
+        String vehicles = "[ " + Vehicle.describe(Vehicle.AUTO, Vehicle.QUICK_SERVICE) + "; "
+                + Vehicle.describe(Vehicle.BIKE, Vehicle.BASIC_SERVICE) + ";  ]";
+        assertTrue(lines[0].endsWith(vehicles));
+    }
+
+    @Test
+    public void writerSurvivesBadEntries() {
+        RequestLog log = new RequestLog(new PrintStream(bytes), 16);
+        try {
+            log.log(9, request());
+            fail("unknown event accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            log.log(RequestLog.PLACED, null);
+            fail("null request accepted");
+        } catch (NullPointerException e) {
+            // expected
+        }
+
+        assertTrue(log.log(RequestLog.REJECTED, request()));
+        log.close();
+
+        assertEquals(1, lines().length);
+        assertTrue(lines()[0].contains("rejected"));
+        assertEquals(0, log.getDropped());
+    }
+
+    @Test
+    public void dropsEntriesWhenFull() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        OutputStream slow = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                bytes.write(b);
+            }
+        };
+
+        RequestLog log = new RequestLog(new PrintStream(slow), 2);
+        ServiceRequest r = request();
+        assertTrue(log.log(RequestLog.PLACED, r));
+        // the background thread has taken the first entry and is stuck
+        // printing it: two more fill the buffer
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertTrue(log.log(RequestLog.STARTED, r));
+        assertTrue(log.log(RequestLog.COMPLETED, r));
+        assertFalse(log.log(RequestLog.COMPLETED, r));
+
+        release.countDown();
+        log.close();
+        assertFalse(log.log(RequestLog.PLACED, r));
+        assertEquals(2, log.getDropped());
+        assertEquals(3, lines().length);
+    }
+}
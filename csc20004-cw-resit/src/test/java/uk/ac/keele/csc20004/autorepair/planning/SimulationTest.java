@@ -0,0 +1,71 @@
+
+package uk.ac.keele.csc20004.autorepair.planning;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for Simulation: being deterministic, its results only depend on
+ * the configuration, the load and the seeds.
+ */
+public class SimulationTest {
+    private static final long[] SEEDS = {1, 2, 3};
+    private static final CostModel COST = new CostModel(100, 1, 10);
+
+    private static Configuration configuration(int mechanics) {
+        return new Configuration(mechanics, new int[] {10, 10, 10, 10}, 500);
+    }
+
+    private static SimulationResult simulate(int mechanics, LoadProfile profile) {
+        return new Simulation(configuration(mechanics), profile, COST, SEEDS).call();
+    }
+
+    private static int arrivals(SimulationResult r) {
+        return r.getServed() + r.getRejected() + r.getUnfinished();
+    }
+
+    @Test
+    public void sameSeedsGiveSameResult() {
+        LoadProfile profile = LoadProfile.steady(600000, 30);
+        SimulationResult a = simulate(2, profile);
+        SimulationResult b = simulate(2, profile);
+
+        assertEquals(a.getServed(), b.getServed());
+        assertEquals(a.getRejected(), b.getRejected());
+        assertEquals(a.getUnfinished(), b.getUnfinished());
+        assertEquals(a.getP95Wait(), b.getP95Wait());
+        assertEquals(a.getMaxWait(), b.getMaxWait());
+        assertEquals(a.getCost(), b.getCost(), 0.0);
+    }
+
+    @Test
+    public void lightLoadIsServedWithoutRejections() {
+        SimulationResult r = simulate(2, LoadProfile.steady(600000, 1));
+
+        assertTrue(r.getServed() > 0);
+        assertEquals(0, r.getRejected());
+        assertEquals(0, r.getUnfinished());
+    }
+
+    @Test
+    public void heavyLoadCausesRejections() {
+        SimulationResult r = simulate(1, LoadProfile.steady(600000, 600));
+
+        assertTrue(r.getRejected() > 0);
+        assertTrue(r.getP95Wait() > 0);
+    }
+
+    @Test
+    public void configurationsSeeTheSameRequests() {
+        // with one mechanic many requests are rejected, with eight none is:
+        // the arrivals must be the same anyway
+        LoadProfile profile = LoadProfile.steady(600000, 120);
+        SimulationResult few = simulate(1, profile);
+        SimulationResult many = simulate(8, profile);
+
+        assertTrue(few.getRejected() > 0);
+        assertEquals(0, many.getRejected());
+        assertEquals(arrivals(many), arrivals(few));
+    }
+}
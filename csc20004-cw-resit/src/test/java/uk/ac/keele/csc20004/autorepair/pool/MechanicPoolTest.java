@@ -0,0 +1,233 @@
+
+package uk.ac.keele.csc20004.autorepair.pool;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.Part;
+import uk.ac.keele.csc20004.autorepair.RequestQueue;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for MechanicPool and PoolController. */
+public class MechanicPoolTest {
+    private static final long TIMEOUT = 5000;
+
+    private final QueueAutorepair autorepair = new QueueAutorepair();
+    private MechanicPool pool;
+    private Thread.UncaughtExceptionHandler defaultHandler;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        if (defaultHandler != null) {
+            Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+        }
+    }
+
+    private static ServiceRequest request() {
+        return new ServiceRequest(Vehicle.createQuickService(Vehicle.AUTO));
+    }
+
+    @Test
+    public void shutdownLetsBusyMechanicFinish() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        pool = new MechanicPool(autorepair, () -> r -> {
+            started.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+            finished.countDown();
+        }, 2, 2);
+        List<PoolResizeEvent> events = new CopyOnWriteArrayList<>();
+        pool.addPoolResizeListener(events::add);
+
+        pool.start();
+        autorepair.placeRequest(request());
+        assertTrue(started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        pool.shutdown();
+        assertTrue(finished.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertFalse(interrupted.get());
+        assertTrue(pool.isShutdown());
+        assertEquals(0, pool.getSize());
+
+        // start, then shutdown
+        assertEquals(2, events.size());
+        assertEquals(2, events.get(1).getOldSize());
+        assertEquals(0, events.get(1).getNewSize());
+    }
+
+    @Test
+    public void failingMechanicKeepsWorking() throws InterruptedException {
+        AtomicInteger reported = new AtomicInteger();
+        defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> reported.incrementAndGet());
+
+        int n = 5;
+        CountDownLatch attempts = new CountDownLatch(n);
+        pool = new MechanicPool(autorepair, () -> r -> {
+            attempts.countDown();
+            throw new IllegalStateException("no parts");
+        }, 2, 2);
+
+        pool.start();
+        for (int i = 0; i < n; i++) {
+            autorepair.placeRequest(request());
+        }
+
+        assertTrue(attempts.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertEquals(2, pool.getSize());
+        waitFor(() -> pool.getCompletedRequests() == n);
+        assertEquals(n, reported.get());
+        assertEquals(0, autorepair.getNumOfWaitingRequests());
+    }
+
+    @Test
+    public void deadWorkerLeavesThePool() throws InterruptedException {
+        pool = new MechanicPool(autorepair, () -> r -> {
+            throw new AssertionError("fatal");
+        }, 1, 3);
+        List<PoolResizeEvent> events = new CopyOnWriteArrayList<>();
+        defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((t, e) -> { });
+
+        pool.resize(2);
+        pool.addPoolResizeListener(events::add);
+        autorepair.placeRequest(request());
+
+        waitFor(() -> pool.getSize() == 1);
+        assertEquals(1, events.size());
+        assertEquals(2, events.get(0).getOldSize());
+        assertEquals(1, events.get(0).getNewSize());
+    }
+
+    @Test
+    public void controllerStopsWhenPoolIsShutDown() throws InterruptedException {
+        pool = new MechanicPool(autorepair, () -> r -> { }, 1, 4);
+        PoolController controller = new PoolController(pool, autorepair, 1000, 10);
+
+        // not started yet: nothing to adapt
+        controller.sample();
+        assertEquals(0, pool.getSize());
+
+        pool.start();
+        Thread t = new Thread(controller);
+        t.start();
+        pool.shutdown();
+
+        t.join(TIMEOUT);
+        assertFalse(t.isAlive());
+    }
+
+    private static void waitFor(Condition c) throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (!c.holds()) {
+            assertTrue("timed out", System.currentTimeMillis() < end);
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    /** An autorepair whose waiting line is a RequestQueue; getNextRequest()
+     * returns null when there is no request, and the shelves are not used.
+     */
+    private static class QueueAutorepair implements Autorepair {
+        private final RequestQueue queue = new RequestQueue();
+
+        @Override
+        public void placeRequest(ServiceRequest r) {
+            queue.offer(r);
+        }
+
+        @Override
+        public ServiceRequest getNextRequest() {
+            return queue.poll();
+        }
+
+        @Override
+        public void completeService(ServiceRequest r) {
+        }
+
+        @Override
+        public int getNumOfWaitingRequests() {
+            return queue.size();
+        }
+
+        @Override
+        public Part fetchOilFilter() {
+            return Part.createOilFilter();
+        }
+
+        @Override
+        public Part fetchBattery() {
+            return Part.createBattery();
+        }
+
+        @Override
+        public Part fetchBrakes() {
+            return Part.createBrakes();
+        }
+
+        @Override
+        public Part fetchTyres() {
+            return Part.createTyres();
+        }
+
+        @Override
+        public void refillOilFilter() {
+        }
+
+        @Override
+        public void refillBattery() {
+        }
+
+        @Override
+        public void refillBrakes() {
+        }
+
+        @Override
+        public void refillTyres() {
+        }
+
+        @Override
+        public int getOilFilterStorageLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getBatteryStorageLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getBrakesStorageLevel() {
+            return 0;
+        }
+
+        @Override
+        public int getTyresStorageLevel() {
+            return 0;
+        }
+    }
+}
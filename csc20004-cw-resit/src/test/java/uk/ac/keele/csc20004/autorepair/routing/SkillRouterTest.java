@@ -0,0 +1,177 @@
+
+package uk.ac.keele.csc20004.autorepair.routing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import uk.ac.keele.csc20004.autorepair.Autorepair;
+import uk.ac.keele.csc20004.autorepair.ServiceRequest;
+import uk.ac.keele.csc20004.autorepair.Vehicle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for SkillRouter. */
+public class SkillRouterTest {
+    private final SkillRouter router = new SkillRouter();
+
+    private static ServiceRequest quick(int vehicleType) {
+        return new ServiceRequest(Vehicle.createQuickService(vehicleType));
+    }
+
+    private static ServiceRequest quickBoth() {
+        return new ServiceRequest(Vehicle.createQuickService(Vehicle.AUTO),
+                Vehicle.createQuickService(Vehicle.BIKE));
+    }
+
+    private SkilledMechanic mechanic(Skill first, Skill... rest) {
+        SkilledMechanic m = new TestMechanic(EnumSet.of(first, rest));
+        router.addMechanic(m);
+        return m;
+    }
+
+    @Test
+    public void oldestFirstAcrossSkillAndGeneralQueues() {
+        SkilledMechanic m = mechanic(Skill.AUTO_QUICK, Skill.BIKE_QUICK);
+        ServiceRequest a1 = quick(Vehicle.AUTO);
+        ServiceRequest both = quickBoth();
+        ServiceRequest b1 = quick(Vehicle.BIKE);
+        ServiceRequest a2 = quick(Vehicle.AUTO);
+        for (ServiceRequest r : Arrays.asList(a1, both, b1, a2)) {
+            assertTrue(router.placeRequest(r));
+        }
+
+        assertSame(a1, router.pollRequest(m));
+        assertSame(both, router.pollRequest(m));
+        assertSame(b1, router.pollRequest(m));
+        assertSame(a2, router.pollRequest(m));
+        assertNull(router.pollRequest(m));
+        assertEquals(0, router.getNumOfWaitingRequests());
+    }
+
+    @Test
+    public void generalRequestIsNotStarved() {
+        SkilledMechanic m = mechanic(Skill.AUTO_QUICK, Skill.BIKE_QUICK);
+        ServiceRequest both = quickBoth();
+        router.placeRequest(both);
+        for (int i = 0; i < 10; i++) {
+            router.placeRequest(quick(Vehicle.AUTO));
+        }
+
+        assertSame(both, router.pollRequest(m));
+    }
+
+    @Test
+    public void mechanicOnlyGetsWhatItCanDo() {
+        SkilledMechanic autos = mechanic(Skill.AUTO_QUICK);
+        mechanic(Skill.AUTO_QUICK, Skill.BIKE_QUICK);
+        ServiceRequest both = quickBoth();
+        ServiceRequest bike = quick(Vehicle.BIKE);
+        ServiceRequest auto = quick(Vehicle.AUTO);
+        router.placeRequest(both);
+        router.placeRequest(bike);
+        router.placeRequest(auto);
+
+        assertSame(auto, router.pollRequest(autos));
+        assertNull(router.pollRequest(autos));
+        assertEquals(2, router.getNumOfWaitingRequests());
+        assertEquals(1, router.getNumOfWaitingRequests(Skill.BIKE_QUICK));
+    }
+
+    @Test
+    public void rejectsRequestsNoMechanicCanServe() {
+        assertFalse(router.placeRequest(quick(Vehicle.AUTO)));
+
+        mechanic(Skill.AUTO_QUICK);
+        mechanic(Skill.BIKE_QUICK);
+        assertTrue(router.canBeServed(quick(Vehicle.AUTO)));
+        assertFalse(router.placeRequest(new ServiceRequest(Vehicle.createBasicService(Vehicle.AUTO))));
+        // each vehicle can be serviced, but nobody can do both
+        assertFalse(router.canBeServed(quickBoth()));
+        assertFalse(router.placeRequest(quickBoth()));
+        assertEquals(0, router.getNumOfWaitingRequests());
+    }
+
+    @Test
+    public void rejectsRequestsBeyondCapacity() {
+        mechanic(Skill.AUTO_QUICK);
+        for (int i = 0; i < Autorepair.MAX_REQUESTS; i++) {
+            assertTrue(router.placeRequest(quick(Vehicle.AUTO)));
+        }
+        assertFalse(router.placeRequest(quick(Vehicle.AUTO)));
+    }
+
+    @Test
+    public void removingMechanicHandsBackOrphans() {
+        SkilledMechanic autos = mechanic(Skill.AUTO_QUICK);
+        SkilledMechanic all = mechanic(Skill.AUTO_QUICK, Skill.BIKE_QUICK);
+        ServiceRequest a = quick(Vehicle.AUTO);
+        ServiceRequest b1 = quick(Vehicle.BIKE);
+        ServiceRequest both = quickBoth();
+        ServiceRequest b2 = quick(Vehicle.BIKE);
+        for (ServiceRequest r : Arrays.asList(a, b1, both, b2)) {
+            assertTrue(router.placeRequest(r));
+        }
+
+        assertEquals(Arrays.asList(b1, both, b2), router.removeMechanic(all));
+        assertEquals(1, router.getNumOfWaitingRequests());
+        assertFalse(router.placeRequest(quick(Vehicle.BIKE)));
+        assertSame(a, router.pollRequest(autos));
+
+        // removing it again changes nothing
+        assertEquals(Collections.emptyList(), router.removeMechanic(all));
+    }
+
+    @Test
+    public void removingMechanicKeepsRequestsOthersCanServe() {
+        mechanic(Skill.AUTO_QUICK);
+        SkilledMechanic other = mechanic(Skill.AUTO_QUICK);
+        router.placeRequest(quick(Vehicle.AUTO));
+
+        assertTrue(router.removeMechanic(other).isEmpty());
+        assertEquals(1, router.getNumOfWaitingRequests());
+    }
+
+    @Test
+    public void getNextRequestWaitsForWork() throws InterruptedException {
+        SkilledMechanic m = mechanic(Skill.BIKE_QUICK);
+        AtomicReference<ServiceRequest> taken = new AtomicReference<>();
+        Thread t = new Thread(() -> {
+            try {
+                taken.set(router.getNextRequest(m));
+            } catch (InterruptedException e) {
+                // the test fails below
+            }
+        });
+        t.start();
+
+        ServiceRequest r = quick(Vehicle.BIKE);
+        router.placeRequest(r);
+        t.join(5000);
+        assertSame(r, taken.get());
+    }
+
+    private static class TestMechanic implements SkilledMechanic {
+        private final Set<Skill> skills;
+
+        TestMechanic(Set<Skill> skills) {
+            this.skills = skills;
+        }
+
+        @Override
+        public Set<Skill> getSkills() {
+            return skills;
+        }
+
+        @Override
+        public void processRequest(ServiceRequest r) {
+        }
+    }
+}